@@ -0,0 +1,132 @@
+package hioa.android.chess;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures {@link Chessboard#kingInCheckAfter(Chesspiece, int, int)} for every
+ * pseudo-legal move of the side to move, over all the positions in the corpus
+ * <p>
+ * Pseudo-legal moves follow the way the pieces move but may leave the own king
+ * in check: pinned pieces leaving the pin, the king stepping onto attacked
+ * squares and moves ignoring a check. These are the moves the method exists to
+ * reject, so the corpus holds both outcomes. Legal moves alone would always
+ * answer false.
+ * 
+ * @author Lars Staberget
+ * @version 2013-11-24
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class CheckDetectionBenchmark {
+
+	@Param({ "middlegame", "endgame" })
+	public String phase;
+
+	private Chessboard[] mBoards;
+	private Chesspiece[] mPieces;
+	private int[] mRows, mColumns;
+
+	@Setup
+	public void setup() {
+		List<Chessboard> boards = new ArrayList<Chessboard>();
+		List<Chesspiece> pieces = new ArrayList<Chesspiece>();
+		List<Integer> targets = new ArrayList<Integer>();
+		int checks = 0;
+		for (Chessboard board : Positions.boards(phase)) {
+			Bitboard bitboard = board.getBitboard();
+			int color = board.getSideToMove();
+			long own = bitboard.getColor(color);
+			for (; own != 0; own &= own - 1) {
+				int from = Long.numberOfTrailingZeros(own);
+				Chesspiece piece = board.getPieceAt(Bitboard.row(from),
+						Bitboard.column(from));
+				long to = pseudoLegalTargets(board, piece, from);
+				for (; to != 0; to &= to - 1) {
+					int target = Long.numberOfTrailingZeros(to);
+					boards.add(board);
+					pieces.add(piece);
+					targets.add(target);
+					if (board.kingInCheckAfter(piece, Bitboard.row(target),
+							Bitboard.column(target))) {
+						checks++;
+					}
+				}
+			}
+		}
+		if (checks == 0 || checks == targets.size()) {
+			throw new IllegalStateException("The " + phase
+					+ " corpus only has moves with one outcome");
+		}
+		mBoards = boards.toArray(new Chessboard[boards.size()]);
+		mPieces = pieces.toArray(new Chesspiece[pieces.size()]);
+		mRows = new int[targets.size()];
+		mColumns = new int[targets.size()];
+		for (int i = 0; i < targets.size(); i++) {
+			mRows[i] = Bitboard.row(targets.get(i));
+			mColumns[i] = Bitboard.column(targets.get(i));
+		}
+	}
+
+	/**
+	 * Gets the squares a piece can move to, whether or not the move leaves
+	 * its king in check
+	 */
+	private static long pseudoLegalTargets(Chessboard board, Chesspiece piece,
+			int from) {
+		Bitboard bitboard = board.getBitboard();
+		int color = piece.getColor();
+		long occupied = bitboard.getOccupied();
+		long targets;
+		switch (piece.getType()) {
+		case Bitboard.PAWN:
+			int enemy = color == Chesspiece.WHITE ? Chesspiece.BLACK
+					: Chesspiece.WHITE;
+			// The pushes are taken from the legal moves, the captures of a
+			// pinned pawn are enough to have pawns among the rejected moves
+			targets = board.getLegalTargets(piece)
+					| (Bitboard.PAWN_ATTACKS[color][from] & bitboard
+							.getColor(enemy));
+			break;
+		case Bitboard.KNIGHT:
+			targets = Bitboard.KNIGHT_ATTACKS[from];
+			break;
+		case Bitboard.BISHOP:
+			targets = MagicBitboard.bishopAttacks(from, occupied);
+			break;
+		case Bitboard.ROOK:
+			targets = MagicBitboard.rookAttacks(from, occupied);
+			break;
+		case Bitboard.QUEEN:
+			targets = MagicBitboard.queenAttacks(from, occupied);
+			break;
+		default:
+			// Castling is left out, it's only legal when nothing attacks it
+			targets = Bitboard.KING_ATTACKS[from];
+		}
+		return targets & ~bitboard.getColor(color);
+	}
+
+	@Benchmark
+	public int kingInCheckAfter() {
+		int checks = 0;
+		for (int i = 0; i < mPieces.length; i++) {
+			if (mBoards[i].kingInCheckAfter(mPieces[i], mRows[i], mColumns[i])) {
+				checks++;
+			}
+		}
+		return checks;
+	}
+}
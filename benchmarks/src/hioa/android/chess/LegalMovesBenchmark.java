@@ -0,0 +1,62 @@
+package hioa.android.chess;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Measures {@link Chesspiece#legalMoves()} for every piece of one class that
+ * belongs to the side to move, over all the positions in the corpus
+ * 
+ * @author Lars Staberget
+ * @version 2013-11-24
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class LegalMovesBenchmark {
+
+	@Param({ "middlegame", "endgame" })
+	public String phase;
+
+	@Param({ "Pawn", "Knight", "Bishop", "Rook", "Queen", "King" })
+	public String piece;
+
+	private Chesspiece[] mPieces;
+
+	@Setup
+	public void setup() {
+		List<Chesspiece> pieces = new ArrayList<Chesspiece>();
+		for (Chessboard board : Positions.boards(phase)) {
+			for (int row = 0; row < Chessboard.ROWS; row++) {
+				for (int column = 0; column < Chessboard.COLUMNS; column++) {
+					Chesspiece found = board.getPieceAt(row, column);
+					if (found != null
+							&& found.getColor() == board.getSideToMove()
+							&& found.getClass().getSimpleName().equals(piece)) {
+						pieces.add(found);
+					}
+				}
+			}
+		}
+		mPieces = pieces.toArray(new Chesspiece[pieces.size()]);
+	}
+
+	@Benchmark
+	public void legalMoves(Blackhole blackhole) {
+		for (int i = 0; i < mPieces.length; i++) {
+			blackhole.consume(mPieces[i].legalMoves());
+		}
+	}
+}
@@ -0,0 +1,120 @@
+package hioa.android.chess;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures the chess annotation written by
+ * {@link PositionHashFactory#insertMove} for every legal move in the corpus,
+ * including the search for another piece that could have made the same move
+ * <p>
+ * Each position has a factory of its own, since the factory looks for the
+ * other piece and hashes the position on its own board. Every invocation
+ * empties the factories first, so the allocation rate includes the arrays of
+ * the factories and their growth.
+ * 
+ * @author Lars Staberget
+ * @version 2013-11-24
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class NotationBenchmark {
+
+	@Param({ "middlegame", "endgame" })
+	public String phase;
+
+	private static final String[] NO_MOVES = new String[0];
+
+	private Chessboard[] mBoards;
+	/**
+	 * The factory of each board in mBoards, shared by the moves of a board
+	 */
+	private PositionHashFactory[] mFactories;
+	/**
+	 * The hash of each board in mBoards, which a factory starts with
+	 */
+	private long[][] mStartHashes;
+	private Chesspiece[] mPieces, mCaptured;
+	private int[] mMoves;
+
+	@Setup
+	public void setup() {
+		List<Chessboard> boards = new ArrayList<Chessboard>();
+		List<PositionHashFactory> factories =
+				new ArrayList<PositionHashFactory>();
+		List<long[]> startHashes = new ArrayList<long[]>();
+		List<Chesspiece> pieces = new ArrayList<Chesspiece>();
+		List<Chesspiece> captured = new ArrayList<Chesspiece>();
+		List<Integer> encoded = new ArrayList<Integer>();
+		MoveList moves = new MoveList();
+		for (Chessboard board : Positions.boards(phase)) {
+			board.getLegalMoves(moves);
+			PositionHashFactory factory = new PositionHashFactory(board);
+			long[] startHash = { board.getHashKey() };
+			for (int i = 0; i < moves.size(); i++) {
+				int from = Move.getFrom(moves.get(i));
+				int to = Move.getTo(moves.get(i));
+				Chesspiece piece = board.getPieceAt(Bitboard.row(from),
+						Bitboard.column(from));
+				Chesspiece target = board.getPieceAt(Bitboard.row(to),
+						Bitboard.column(to));
+				if (target instanceof EnPassant && !(piece instanceof Pawn)) {
+					target = null;
+				}
+				boards.add(board);
+				factories.add(factory);
+				startHashes.add(startHash);
+				pieces.add(piece);
+				captured.add(target);
+				encoded.add(moves.get(i));
+			}
+		}
+		mBoards = boards.toArray(new Chessboard[boards.size()]);
+		mFactories = factories.toArray(new PositionHashFactory[factories
+				.size()]);
+		mStartHashes = startHashes.toArray(new long[startHashes.size()][]);
+		mPieces = pieces.toArray(new Chesspiece[pieces.size()]);
+		mCaptured = captured.toArray(new Chesspiece[captured.size()]);
+		mMoves = new int[encoded.size()];
+		for (int i = 0; i < mMoves.length; i++) {
+			mMoves[i] = encoded.get(i);
+		}
+	}
+
+	@Benchmark
+	public int insertMove() {
+		int characters = 0;
+		for (int i = 0; i < mMoves.length; i++) {
+			Chessboard board = mBoards[i];
+			PositionHashFactory factory = mFactories[i];
+			if (i == 0 || factory != mFactories[i - 1]) {
+				// Only the moves of this invocation are kept
+				factory.restore(mStartHashes[i], NO_MOVES, NO_MOVES);
+			}
+			int row = Bitboard.row(Move.getTo(mMoves[i]));
+			int column = Bitboard.column(Move.getTo(mMoves[i]));
+			int oldRow = Bitboard.row(Move.getFrom(mMoves[i]));
+			int oldColumn = Bitboard.column(Move.getFrom(mMoves[i]));
+			Chesspiece other = board.otherPieceCanMoveTo(mPieces[i], row,
+					column);
+			factory.insertMove(board, mPieces[i], row, column, oldRow,
+					oldColumn, mCaptured[i], Move.getPromotion(mMoves[i]),
+					false, false, other, null);
+			characters += factory.getMovesArray()[factory
+					.getCurrentMovesIndex() - 1].length();
+		}
+		return characters;
+	}
+}
@@ -0,0 +1,102 @@
+package hioa.android.chess;
+
+/**
+ * The fixed corpus of positions the benchmarks run on
+ * <p>
+ * The positions never change between releases, so results from different
+ * versions of the code can be compared directly.
+ * 
+ * @author Lars Staberget
+ * @version 2013-11-24
+ */
+
+public class Positions {
+
+	/**
+	 * Middlegame positions, busy boards with many pieces and pins
+	 */
+	public static final String[] MIDDLEGAME = {
+			"r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+			"r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+			"rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+			"r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+			"r1bq1rk1/pp2bppp/2n1pn2/3p4/2PP4/2N1PN2/PP1B1PPP/R2QKB1R b KQ - 3 8" };
+
+	/**
+	 * Endgame positions, few pieces but long sliding moves for the king and
+	 * heavy pieces
+	 */
+	public static final String[] ENDGAME = {
+			"8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+			"8/8/4k3/3r4/8/3RK3/8/8 w - - 0 60",
+			"8/5pk1/6p1/7p/3Q3P/6P1/5PK1/4q3 b - - 4 45",
+			"8/1p6/1P1k4/2p5/2P2B2/4K3/8/3b4 w - - 10 52",
+			"4k3/8/8/8/8/8/4P3/4K2R w K - 0 1" };
+
+	/**
+	 * The opening of a game in coordinate notation, ending with both sides
+	 * moving a knight back and forth
+	 */
+	public static final String GAME = "e2e4 e7e5 g1f3 b8c6 f1b5 a7a6 b5a4 g8f6 "
+			+ "e1g1 f8e7 f1e1 b7b5 a4b3 d7d6 c2c3 e8g8 h2h3 c6a5 b3c2 c7c5 "
+			+ "d2d4 d8c7 b1d2 c5d4 c3d4 a5c6 d2b3 a6a5 c1e3 a5a4 b3d2 c8d7 "
+			+ "d2f1 f8e8 f1d2 e8f8 d2f1 f8e8 f1d2 e8f8";
+
+	/**
+	 * Gets one of the sets of positions by name
+	 * 
+	 * @param phase
+	 *            "middlegame" or "endgame"
+	 * @return The positions as FEN strings
+	 */
+	public static String[] get(String phase) {
+		if (phase.equals("middlegame")) {
+			return MIDDLEGAME;
+		} else if (phase.equals("endgame")) {
+			return ENDGAME;
+		}
+		throw new IllegalArgumentException("Unknown phase: " + phase);
+	}
+
+	/**
+	 * Sets up a board for every position in the set
+	 */
+	public static Chessboard[] boards(String phase) {
+		String[] fens = get(phase);
+		Chessboard[] boards = new Chessboard[fens.length];
+		for (int i = 0; i < fens.length; i++) {
+			boards[i] = new Chessboard(fens[i]);
+		}
+		return boards;
+	}
+
+	/**
+	 * Converts moves in coordinate notation, as written by
+	 * {@link Move#toString(int)}, back to the encoding of {@link Move}
+	 * 
+	 * @param moves
+	 *            The moves separated by spaces
+	 * @return The encoded moves
+	 */
+	public static int[] parseMoves(String moves) {
+		String[] split = moves.split(" ");
+		int[] parsed = new int[split.length];
+		for (int i = 0; i < split.length; i++) {
+			int promotion = Chessboard.NO_PROMOTION;
+			if (split[i].length() == 5) {
+				promotion = "-qrbn".indexOf(split[i].charAt(4));
+			}
+			parsed[i] = Move.create(parseSquare(split[i], 0),
+					parseSquare(split[i], 2), promotion);
+		}
+		return parsed;
+	}
+
+	private static int parseSquare(String move, int index) {
+		return Bitboard.square('8' - move.charAt(index + 1),
+				move.charAt(index) - 'a');
+	}
+
+	private Positions() {
+	}
+}
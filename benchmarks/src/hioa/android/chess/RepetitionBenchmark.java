@@ -0,0 +1,55 @@
+package hioa.android.chess;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures {@link PositionHashFactory#hashPosition()} and
+ * {@link PositionHashFactory#drawByRepetition()} as they are used after every
+ * move of a game
+ * <p>
+ * Every invocation plays {@link Positions#GAME} on a new factory, so the
+ * allocation rate includes the factory and the growth of its arrays.
+ * 
+ * @author Lars Staberget
+ * @version 2013-11-24
+ */
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class RepetitionBenchmark {
+
+	private Chessboard mBoard;
+	private int[] mMoves;
+
+	@Setup
+	public void setup() {
+		mBoard = new Chessboard();
+		mMoves = Positions.parseMoves(Positions.GAME);
+	}
+
+	@Benchmark
+	public int hashAndCheckRepetition() {
+		PositionHashFactory factory = new PositionHashFactory(mBoard);
+		int repetitions = 0;
+		for (int i = 0; i < mMoves.length; i++) {
+			mBoard.makeMove(mMoves[i]);
+			factory.hashPosition();
+			if (factory.drawByRepetition()) {
+				repetitions++;
+			}
+		}
+		for (int i = 0; i < mMoves.length; i++) {
+			mBoard.unmakeMove();
+		}
+		return repetitions;
+	}
+}
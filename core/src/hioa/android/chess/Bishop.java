@@ -0,0 +1,34 @@
+package hioa.android.chess;
+
+/**
+ * Represents a bishop
+ * 
+ * @author Lars Staberget
+ * @version 2013-11-10
+ */
+
+public class Bishop extends Chesspiece {
+
+	public Bishop(int color, int row, int column) {
+		setColor(color);
+		setRow(row);
+		setColumn(column);
+	}
+
+	@Override
+	public boolean sameClass(Chesspiece piece) {
+		return (piece instanceof Bishop);
+	}
+
+	@Override
+	public int getType() {
+		return Bitboard.BISHOP;
+	}
+
+	@Override
+	public boolean threatensPosition(int row, int column) {
+		long attacks = MagicBitboard.bishopAttacks(getSquare(), getChessboard().getBitboard().getOccupied());
+		return (attacks & Bitboard.bit(Bitboard.square(row, column))) != 0;
+	}
+
+}
@@ -0,0 +1,429 @@
+package hioa.android.chess;
+
+/**
+ * A bitboard representation of the pieces on a {@link Chessboard}
+ * <p>
+ * Every tile is given a square index from 0 to 63 where index = row * 8 +
+ * column. Bit 0 is therefore the top left tile (row 0, column 0) and bit 63 is
+ * the bottom right tile. Every piece type of every color is stored as a single
+ * 64-bit word where a set bit means that such a piece is standing on that
+ * square.
+ * <p>
+ * This lets the {@link Chessboard} answer questions like "is this tile
+ * occupied" and "is this square attacked" with a handful of word operations
+ * instead of scanning every tile on the board.
+ * 
+ * @author Lars Staberget
+ * @version 2013-11-24
+ */
+
+public class Bitboard {
+
+	public static final int PAWN = 0, KNIGHT = 1, BISHOP = 2, ROOK = 3,
+			QUEEN = 4, KING = 5;
+	public static final int NO_SQUARE = -1;
+
+	private static final int SIZE = 8, SQUARES = SIZE * SIZE;
+
+	/**
+	 * The directions used by the sliding pieces. The first four directions
+	 * move towards higher square indexes and the last four towards lower
+	 * square indexes.
+	 */
+	private static final int RIGHT = 0, DOWN = 1, DOWNRIGHT = 2, DOWNLEFT = 3,
+			LEFT = 4, UP = 5, UPLEFT = 6, UPRIGHT = 7;
+	private static final int[] ROW_STEP = { 0, 1, 1, 1, 0, -1, -1, -1 };
+	private static final int[] COLUMN_STEP = { 1, 0, 1, -1, -1, 0, -1, 1 };
+
+	/**
+	 * All the squares reachable from a square in a direction on an empty
+	 * board. Indexed [direction][square]
+	 */
+	private static final long[][] RAYS = new long[8][SQUARES];
+
+	/**
+	 * The squares strictly between two squares on the same row, column or
+	 * diagonal. Indexed [square][square]
+	 */
+	private static final long[][] BETWEEN = new long[SQUARES][SQUARES];
+
+	static final long[] KNIGHT_ATTACKS = new long[SQUARES];
+	static final long[] KING_ATTACKS = new long[SQUARES];
+	/**
+	 * The squares a pawn standing on a square attacks. Indexed
+	 * [color][square]
+	 */
+	static final long[][] PAWN_ATTACKS = new long[2][SQUARES];
+
+	static {
+		int[][] knightSteps = { { 2, 1 }, { 2, -1 }, { -2, 1 }, { -2, -1 },
+				{ 1, 2 }, { 1, -2 }, { -1, 2 }, { -1, -2 } };
+		for (int square = 0; square < SQUARES; square++) {
+			int row = row(square);
+			int column = column(square);
+			for (int direction = 0; direction < 8; direction++) {
+				int r = row + ROW_STEP[direction];
+				int c = column + COLUMN_STEP[direction];
+				if (onBoard(r, c)) {
+					KING_ATTACKS[square] |= bit(square(r, c));
+				}
+				long between = 0;
+				while (onBoard(r, c)) {
+					RAYS[direction][square] |= bit(square(r, c));
+					BETWEEN[square][square(r, c)] = between;
+					between |= bit(square(r, c));
+					r += ROW_STEP[direction];
+					c += COLUMN_STEP[direction];
+				}
+			}
+			for (int[] step : knightSteps) {
+				if (onBoard(row + step[0], column + step[1])) {
+					KNIGHT_ATTACKS[square] |= bit(square(row + step[0], column
+							+ step[1]));
+				}
+			}
+			// White pawns move towards row 0, black pawns towards row 7
+			for (int c = column - 1; c <= column + 1; c += 2) {
+				if (onBoard(row - 1, c)) {
+					PAWN_ATTACKS[Chesspiece.WHITE][square] |= bit(square(
+							row - 1, c));
+				}
+				if (onBoard(row + 1, c)) {
+					PAWN_ATTACKS[Chesspiece.BLACK][square] |= bit(square(
+							row + 1, c));
+				}
+			}
+		}
+	}
+
+	/**
+	 * The pieces on the board. Indexed [color][piece type]
+	 */
+	private final long[][] mPieces = new long[2][6];
+	/**
+	 * All the pieces of one color. Indexed [color]
+	 */
+	private final long[] mColors = new long[2];
+	private long mOccupied;
+	private int mEnPassantSquare = NO_SQUARE;
+	/**
+	 * The square of each king, kept up to date by add() and remove(). Indexed
+	 * [color]
+	 */
+	private final int[] mKingSquares = { NO_SQUARE, NO_SQUARE };
+
+	/**
+	 * Converts a row and column into a square index
+	 * 
+	 * @param row
+	 *            The row of the tile
+	 * @param column
+	 *            The column of the tile
+	 * @return The square index of the tile
+	 */
+	public static int square(int row, int column) {
+		return row * SIZE + column;
+	}
+
+	/**
+	 * Gets the row of the provided square index
+	 * 
+	 * @param square
+	 *            The square index
+	 * @return The row the square is located on
+	 */
+	public static int row(int square) {
+		return square >>> 3;
+	}
+
+	/**
+	 * Gets the column of the provided square index
+	 * 
+	 * @param square
+	 *            The square index
+	 * @return The column the square is located on
+	 */
+	public static int column(int square) {
+		return square & (SIZE - 1);
+	}
+
+	/**
+	 * Returns a word where only the bit of the provided square is set
+	 * 
+	 * @param square
+	 *            The square index
+	 * @return A bitboard with a single bit set
+	 */
+	public static long bit(int square) {
+		return 1L << square;
+	}
+
+	/**
+	 * Returns a word where every square on the provided row is set
+	 * 
+	 * @param row
+	 *            The row index
+	 * @return A bitboard of the row
+	 */
+	public static long rowMask(int row) {
+		return 0xFFL << (row * 8);
+	}
+
+	/**
+	 * Returns a word where every square on the provided column is set
+	 * 
+	 * @param column
+	 *            The column index
+	 * @return A bitboard of the column
+	 */
+	public static long columnMask(int column) {
+		return 0x0101010101010101L << column;
+	}
+
+	/**
+	 * Gets the squares strictly between the two provided squares
+	 * 
+	 * @param from
+	 *            The first square
+	 * @param to
+	 *            The second square
+	 * @return A bitboard of the squares between them, or 0 if they don't share
+	 *         a row, column or diagonal
+	 */
+	public static long between(int from, int to) {
+		return BETWEEN[from][to];
+	}
+
+	static boolean onBoard(int row, int column) {
+		return row >= 0 && row < SIZE && column >= 0 && column < SIZE;
+	}
+
+	/**
+	 * Adds a piece to the bitboards
+	 * 
+	 * @param color
+	 *            WHITE or BLACK as defined in {@link Chesspiece}
+	 * @param type
+	 *            The piece type as defined in this class
+	 * @param square
+	 *            The square the piece is placed on
+	 */
+	public void add(int color, int type, int square) {
+		long bit = bit(square);
+		mPieces[color][type] |= bit;
+		mColors[color] |= bit;
+		mOccupied |= bit;
+		if (type == KING) {
+			mKingSquares[color] = square;
+		}
+	}
+
+	/**
+	 * Removes a piece from the bitboards
+	 * 
+	 * @param color
+	 *            WHITE or BLACK as defined in {@link Chesspiece}
+	 * @param type
+	 *            The piece type as defined in this class
+	 * @param square
+	 *            The square the piece is removed from
+	 */
+	public void remove(int color, int type, int square) {
+		long bit = ~bit(square);
+		mPieces[color][type] &= bit;
+		mColors[color] &= bit;
+		mOccupied &= bit;
+		if (type == KING && mKingSquares[color] == square) {
+			mKingSquares[color] = NO_SQUARE;
+		}
+	}
+
+	/**
+	 * Gets all the pieces of the provided color and type
+	 * 
+	 * @param color
+	 *            WHITE or BLACK as defined in {@link Chesspiece}
+	 * @param type
+	 *            The piece type as defined in this class
+	 * @return A bitboard of the squares those pieces are standing on
+	 */
+	public long getPieces(int color, int type) {
+		return mPieces[color][type];
+	}
+
+	/**
+	 * Gets all the pieces of the provided color
+	 * 
+	 * @param color
+	 *            WHITE or BLACK as defined in {@link Chesspiece}
+	 * @return A bitboard of the squares those pieces are standing on
+	 */
+	public long getColor(int color) {
+		return mColors[color];
+	}
+
+	/**
+	 * Gets every occupied square
+	 * 
+	 * @return A bitboard of every square a piece is standing on
+	 */
+	public long getOccupied() {
+		return mOccupied;
+	}
+
+	/**
+	 * Gets the square where a pawn can currently be captured through en
+	 * passant
+	 * 
+	 * @return The en passant square or NO_SQUARE
+	 */
+	public int getEnPassantSquare() {
+		return mEnPassantSquare;
+	}
+
+	public void setEnPassantSquare(int square) {
+		mEnPassantSquare = square;
+	}
+
+	/**
+	 * Gets the square the king of the provided color is standing on
+	 * 
+	 * @param color
+	 *            WHITE or BLACK as defined in {@link Chesspiece}
+	 * @return The square index of the king
+	 */
+	public int getKingSquare(int color) {
+		return mKingSquares[color];
+	}
+
+	/**
+	 * Checks if the provided square is attacked by any piece of the provided
+	 * color
+	 * 
+	 * @param square
+	 *            The square to check
+	 * @param byColor
+	 *            The color of the attacking pieces
+	 * @return True if at least one piece attacks the square
+	 */
+	public boolean isAttacked(int square, int byColor) {
+		return isAttacked(square, byColor, mOccupied, -1L);
+	}
+
+	/**
+	 * Checks if the provided square is attacked by any piece of the provided
+	 * color on a board where the occupied squares are given by the caller.
+	 * <p>
+	 * This is used to test hypothetical moves without changing the board.
+	 * 
+	 * @param square
+	 *            The square to check
+	 * @param byColor
+	 *            The color of the attacking pieces
+	 * @param occupied
+	 *            The occupied squares to use when looking for blockers
+	 * @param attackers
+	 *            Only pieces on these squares are considered attackers. Use
+	 *            this to remove a piece that would have been captured
+	 * @return True if at least one piece attacks the square
+	 */
+	public boolean isAttacked(int square, int byColor, long occupied,
+			long attackers) {
+		long[] pieces = mPieces[byColor];
+		attackers &= mColors[byColor];
+		if ((PAWN_ATTACKS[1 - byColor][square] & pieces[PAWN] & attackers) != 0
+				|| (KNIGHT_ATTACKS[square] & pieces[KNIGHT] & attackers) != 0
+				|| (KING_ATTACKS[square] & pieces[KING] & attackers) != 0) {
+			return true;
+		}
+		long straight = (pieces[ROOK] | pieces[QUEEN]) & attackers;
+		if (straight != 0
+				&& (MagicBitboard.rookAttacks(square, occupied) & straight) != 0) {
+			return true;
+		}
+		long diagonal = (pieces[BISHOP] | pieces[QUEEN]) & attackers;
+		return diagonal != 0
+				&& (MagicBitboard.bishopAttacks(square, occupied) & diagonal) != 0;
+	}
+
+	/**
+	 * Finds every piece of the provided color that attacks the provided square
+	 * 
+	 * @param square
+	 *            The square to check
+	 * @param byColor
+	 *            The color of the attacking pieces
+	 * @param occupied
+	 *            The occupied squares to use when looking for blockers
+	 * @return A bitboard of the attacking pieces
+	 */
+	public long attackersOf(int square, int byColor, long occupied) {
+		long[] pieces = mPieces[byColor];
+		return (PAWN_ATTACKS[1 - byColor][square] & pieces[PAWN])
+				| (KNIGHT_ATTACKS[square] & pieces[KNIGHT])
+				| (KING_ATTACKS[square] & pieces[KING])
+				| (MagicBitboard.rookAttacks(square, occupied) & (pieces[ROOK] | pieces[QUEEN]))
+				| (MagicBitboard.bishopAttacks(square, occupied) & (pieces[BISHOP] | pieces[QUEEN]));
+	}
+
+	/**
+	 * Gets the squares a rook on the provided square attacks by walking each
+	 * ray until it hits a blocking piece.
+	 * <p>
+	 * This is only used to build the tables in {@link MagicBitboard}, which
+	 * should be used everywhere else.
+	 * 
+	 * @param square
+	 *            The square the rook is standing on
+	 * @param occupied
+	 *            The occupied squares which block the rook
+	 * @return A bitboard of every attacked square, including the first
+	 *         blocking piece in each direction
+	 */
+	static long rookRayAttacks(int square, long occupied) {
+		return rayAttacks(RIGHT, square, occupied)
+				| rayAttacks(DOWN, square, occupied)
+				| rayAttacks(LEFT, square, occupied)
+				| rayAttacks(UP, square, occupied);
+	}
+
+	/**
+	 * Gets the squares a bishop on the provided square attacks by walking each
+	 * ray until it hits a blocking piece.
+	 * <p>
+	 * This is only used to build the tables in {@link MagicBitboard}, which
+	 * should be used everywhere else.
+	 * 
+	 * @param square
+	 *            The square the bishop is standing on
+	 * @param occupied
+	 *            The occupied squares which block the bishop
+	 * @return A bitboard of every attacked square, including the first
+	 *         blocking piece in each direction
+	 */
+	static long bishopRayAttacks(int square, long occupied) {
+		return rayAttacks(DOWNRIGHT, square, occupied)
+				| rayAttacks(DOWNLEFT, square, occupied)
+				| rayAttacks(UPLEFT, square, occupied)
+				| rayAttacks(UPRIGHT, square, occupied);
+	}
+
+	/**
+	 * Gets the attacked squares in one direction, stopping at the first
+	 * blocking piece
+	 */
+	private static long rayAttacks(int direction, int square, long occupied) {
+		long ray = RAYS[direction][square];
+		long blockers = ray & occupied;
+		if (blockers == 0) {
+			return ray;
+		}
+		int blocker;
+		if (direction < LEFT) {
+			blocker = Long.numberOfTrailingZeros(blockers);
+		} else {
+			blocker = 63 - Long.numberOfLeadingZeros(blockers);
+		}
+		return ray ^ RAYS[direction][blocker];
+	}
+}
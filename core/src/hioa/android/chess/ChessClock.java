@@ -0,0 +1,383 @@
+package hioa.android.chess;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The clock of a game, measured with System.nanoTime()
+ * <p>
+ * The clock keeps the remaining time of both colors and the moment the
+ * running color started to use its time. It is only woken up when something
+ * visible happens: when the running color's time reaches the next whole
+ * second, so the display can be updated, or when it runs out. Nothing runs
+ * while the clock is paused, stopped or out of time. Clocks that aren't
+ * displayed can be created with a resolution of 0, and are then only woken
+ * up when the time runs out.
+ * <p>
+ * Time doesn't run while the clock is paused. While a move is being made the
+ * time keeps running, but the flag doesn't fall until the move has been made,
+ * so that a decisive move isn't lost to a timeout. A color whose time ran
+ * out during its move loses on time once the move is made.
+ * <p>
+ * All methods may be called from any thread. The listener is called on the
+ * thread of the {@link TimerWheel}, never while the clock is locked.
+ * 
+ * @author Lars Staberget
+ * @version 2013-11-24
+ */
+
+public class ChessClock {
+
+	/**
+	 * The listener is told about the time of the running color every time it
+	 * passes a multiple of this, unless another resolution is given
+	 */
+	public static final long DEFAULT_RESOLUTION = 1000;
+
+	private static final int NONE = -1;
+	private static final long NANOS_PER_MILLI = 1000000;
+
+	/**
+	 * Receives the events of a clock
+	 */
+	public interface Listener {
+		/**
+		 * Called when the time of a color has changed visibly
+		 * 
+		 * @param color
+		 *            The color whose time changed
+		 * @param time
+		 *            The remaining time in millis
+		 */
+		public void onClockUpdated(int color, long time);
+
+		/**
+		 * Called once, when the time of the running color runs out
+		 * 
+		 * @param color
+		 *            The color that ran out of time
+		 */
+		public void onFlagFall(int color);
+	}
+
+	private final TimerWheel mWheel;
+	private final long mResolution;
+	private final Listener mListener;
+	private final long[] mTime = new long[2];
+	private long mBonusTime;
+	private int mRunningColor = NONE;
+	/**
+	 * The System.nanoTime() when the running color's time was last charged
+	 */
+	private long mSince;
+	private boolean mPaused, mMoving, mStopped, mFlagFallen;
+	private TimerWheel.Timeout mWakeUp;
+	/**
+	 * Increased every time the wake up is rescheduled, so that a wake up that
+	 * couldn't be cancelled in time knows it's stale
+	 */
+	private int mGeneration;
+	/**
+	 * The number of listener calls in progress
+	 */
+	private int mCallbacks;
+
+	/**
+	 * Creates a clock woken up by the shared {@link TimerWheel}, with the
+	 * default resolution
+	 * 
+	 * @param listener
+	 *            Receives the events of the clock
+	 */
+	public ChessClock(Listener listener) {
+		this(TimerWheel.getShared(), DEFAULT_RESOLUTION, listener);
+	}
+
+	/**
+	 * @param wheel
+	 *            Wakes up the clock when something visible happens
+	 * @param resolution
+	 *            How often the listener is told about the time of the running
+	 *            color, in millis. 0 to only be told when the time runs out.
+	 * @param listener
+	 *            Receives the events of the clock
+	 */
+	public ChessClock(TimerWheel wheel, long resolution, Listener listener) {
+		mWheel = wheel;
+		mResolution = resolution;
+		mListener = listener;
+	}
+
+	/**
+	 * Sets the bonus time a color gains after each move
+	 * 
+	 * @param bonusTime
+	 *            The bonus in millis
+	 */
+	public synchronized void setBonusTime(long bonusTime) {
+		mBonusTime = bonusTime;
+	}
+
+	/**
+	 * Gets the remaining time of a color, including the time used by the
+	 * running color until now
+	 * 
+	 * @param color
+	 *            The color
+	 * @return The remaining time in millis
+	 */
+	public synchronized long getTime(int color) {
+		if (color == mRunningColor && isTicking()) {
+			return Math.max(0, mTime[color] - (System.nanoTime() - mSince)
+					/ NANOS_PER_MILLI);
+		}
+		return mTime[color];
+	}
+
+	/**
+	 * Sets the remaining time of a color
+	 * 
+	 * @param color
+	 *            The color
+	 * @param time
+	 *            The remaining time in millis
+	 */
+	public synchronized void setTime(int color, long time) {
+		charge();
+		mTime[color] = time;
+		reschedule();
+	}
+
+	/**
+	 * Starts the clock of a color. Does nothing if the clock has been started
+	 * before.
+	 * 
+	 * @param color
+	 *            The color whose time runs first
+	 */
+	public synchronized void start(int color) {
+		if (mRunningColor != NONE) {
+			return;
+		}
+		mRunningColor = color;
+		mSince = System.nanoTime();
+		reschedule();
+	}
+
+	/**
+	 * Ends the turn of the running color. Its time is charged up to now, it
+	 * gains the bonus time and the other color's time starts running, all at
+	 * the same instant.
+	 */
+	public void press() {
+		int color;
+		long time;
+		boolean flagFall = false;
+		synchronized (this) {
+			if (mRunningColor == NONE || mStopped || mFlagFallen) {
+				return;
+			}
+			charge();
+			color = mRunningColor;
+			if (mTime[color] <= 0) {
+				// The time ran out while the move was being made
+				mTime[color] = time = 0;
+				mFlagFallen = flagFall = true;
+			} else {
+				mTime[color] += mBonusTime;
+				time = mTime[color];
+				mRunningColor = otherColor(color);
+			}
+			reschedule();
+			mCallbacks++;
+		}
+		try {
+			mListener.onClockUpdated(color, time);
+			if (flagFall) {
+				mListener.onFlagFall(color);
+			}
+		} finally {
+			callbackDone();
+		}
+	}
+
+	/**
+	 * Makes a color the running color without a bonus, for example after a
+	 * game has been restored
+	 * 
+	 * @param color
+	 *            The color whose time should run
+	 */
+	public synchronized void setRunningColor(int color) {
+		if (mRunningColor == NONE || mRunningColor == color) {
+			return;
+		}
+		charge();
+		mRunningColor = color;
+		reschedule();
+	}
+
+	/**
+	 * Keeps the flag from falling while a move is being made. The time still
+	 * runs, and the flag falls as soon as this is called with false if the
+	 * time ran out in the meantime.
+	 * 
+	 * @param moving
+	 *            true when a move starts, false when it has been made
+	 */
+	public synchronized void setMoving(boolean moving) {
+		charge();
+		mMoving = moving;
+		reschedule();
+	}
+
+	/**
+	 * Stops the time until this is called again with false
+	 * 
+	 * @param pause
+	 *            true to pause the clock, false to continue
+	 */
+	public synchronized void pause(boolean pause) {
+		charge();
+		mPaused = pause;
+		reschedule();
+	}
+
+	/**
+	 * Stops the clock for good, without a timeout. Used when the game ends by
+	 * other means.
+	 */
+	public synchronized void stop() {
+		charge();
+		mStopped = true;
+		reschedule();
+	}
+
+	/**
+	 * Waits until the listener isn't being called. After stop() has returned,
+	 * no new calls are started, so the clock is then done with the listener
+	 * for good.
+	 * 
+	 * @param timeout
+	 *            The longest time to wait in millis
+	 * @return true if no call was in progress when this returned
+	 * @throws InterruptedException
+	 *             If the thread was interrupted while waiting
+	 */
+	public synchronized boolean awaitIdle(long timeout)
+			throws InterruptedException {
+		long end = System.nanoTime() + timeout * NANOS_PER_MILLI;
+		while (mCallbacks > 0) {
+			long left = end - System.nanoTime();
+			if (left <= 0) {
+				return false;
+			}
+			TimeUnit.NANOSECONDS.timedWait(this, left);
+		}
+		return true;
+	}
+
+	/**
+	 * @return true if the clock has been started and has neither been stopped
+	 *         nor run out of time
+	 */
+	public synchronized boolean isRunning() {
+		return mRunningColor != NONE && !mStopped && !mFlagFallen;
+	}
+
+	private boolean isTicking() {
+		return isRunning() && !mPaused;
+	}
+
+	/**
+	 * Charges the time used by the running color since mSince
+	 */
+	private void charge() {
+		long now = System.nanoTime();
+		if (isTicking()) {
+			long elapsed = now - mSince;
+			mTime[mRunningColor] -= elapsed / NANOS_PER_MILLI;
+			// The fraction of a milli that wasn't charged is charged next time
+			mSince = now - elapsed % NANOS_PER_MILLI;
+		} else {
+			mSince = now;
+		}
+	}
+
+	/**
+	 * Cancels the planned wake up, and plans the next one if the clock is
+	 * ticking
+	 */
+	private void reschedule() {
+		mGeneration++;
+		if (mWakeUp != null) {
+			mWakeUp.cancel();
+			mWakeUp = null;
+		}
+		if (!isTicking()) {
+			return;
+		}
+		long time = mTime[mRunningColor];
+		if (time <= 0 && mMoving) {
+			// The flag falls when the move has been made
+			return;
+		}
+		// The time until the displayed second changes, or the time runs out
+		long delay = time;
+		if (mResolution > 0) {
+			delay = Math.min(time, time % mResolution + 1);
+		}
+		final int generation = mGeneration;
+		mWakeUp = mWheel.schedule(new Runnable() {
+			public void run() {
+				wakeUp(generation);
+			}
+		}, Math.max(0, delay), TimeUnit.MILLISECONDS);
+	}
+
+	private void wakeUp(int generation) {
+		int color;
+		long time;
+		boolean flagFall = false;
+		synchronized (this) {
+			if (generation != mGeneration) {
+				return;
+			}
+			mWakeUp = null;
+			charge();
+			color = mRunningColor;
+			time = mTime[color];
+			if (time <= 0) {
+				if (mMoving) {
+					time = 0;
+				} else {
+					mTime[color] = time = 0;
+					mFlagFallen = flagFall = true;
+				}
+			}
+			reschedule();
+			mCallbacks++;
+		}
+		try {
+			mListener.onClockUpdated(color, time);
+			if (flagFall) {
+				mListener.onFlagFall(color);
+			}
+		} finally {
+			callbackDone();
+		}
+	}
+
+	private synchronized void callbackDone() {
+		mCallbacks--;
+		if (mCallbacks == 0) {
+			notifyAll();
+		}
+	}
+
+	private static int otherColor(int color) {
+		if (color == Chesspiece.WHITE) {
+			return Chesspiece.BLACK;
+		}
+		return Chesspiece.WHITE;
+	}
+}
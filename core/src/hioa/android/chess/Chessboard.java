@@ -0,0 +1,1528 @@
+package hioa.android.chess;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+/**
+ * The backend representation of the chessboard
+ * <p>
+ * This class only knows the rules of the game and has no dependencies on
+ * Android. Everything that happens during a game is reported to a
+ * {@link ChessboardListener}.
+ * <p>
+ * A game is changed by one thread at a time. Moves are made on the thread of
+ * the game's executor, see setExecutor(), and events from other threads, such
+ * as a flag fall, are sent to it with execute(). Other threads read the game
+ * through the {@link GameState} published after every change.
+ * 
+ * @author Lars Staberget
+ * @version 2013-11-23
+ */
+
+public class Chessboard {
+
+	public static final int NO_PROMOTION = 0, QUEEN = 1, ROOK = 2, BISHOP = 3,
+			KNIGHT = 4;
+	public static final int CHECKMATE = 0, OTHERGAMEOVER = 1, GAMENOTOVER = 2;
+	public static final int ROWS = 8, COLUMNS = 8;
+
+	/**
+	 * The pieces indexed by their square as defined in {@link Bitboard}.
+	 * <p>
+	 * This is only used to find the {@link Chesspiece} object standing on a
+	 * square. Every query about the board state itself is answered by
+	 * mBitboard.
+	 */
+	private Chesspiece[] mSquares;
+	private Bitboard mBitboard;
+	private MoveGenerator mMoveGenerator;
+	private EnPassant mEnPassant;
+	private int mSideToMove = Chesspiece.WHITE;
+	/**
+	 * The Zobrist hash of the current position, updated every time the board
+	 * changes. See {@link Zobrist}
+	 */
+	private long mHashKey = 0;
+	/**
+	 * The En-Passant key currently included in mHashKey, or 0 if none is
+	 */
+	private long mEnPassantKey = 0;
+	private int mPromotionFlag = NO_PROMOTION;
+	protected PositionHashFactory mPositionHashFactory;
+	private boolean firstMove = true;
+	private long mStartTime;
+	private ChessboardListener mListener;
+	private final ChessClock mClock = new ChessClock(new ChessClock.Listener() {
+		public void onClockUpdated(int color, long time) {
+			mListener.onClockUpdated(color, time);
+		}
+
+		public void onFlagFall(final int color) {
+			execute(new Runnable() {
+				public void run() {
+					timeOut(color);
+				}
+			});
+		}
+	});
+	/**
+	 * Runs the commands that change this game, one at a time
+	 */
+	private Executor mExecutor = new SerialExecutor();
+	private boolean mGameOver = false;
+	/**
+	 * Set when the listener has gone away. Commands aren't run after that.
+	 */
+	private volatile boolean mShutDown = false;
+	private volatile GameState mState;
+
+	/**
+	 * Used to count towards the 50-move rule
+	 */
+	private int mMoveCount = 0;
+
+	/**
+	 * The undo stack used by unmakeMove(). Every array is indexed by the
+	 * number of moves made, and grows by UNDO_INCREMENT when full.
+	 */
+	private static final int UNDO_INCREMENT = 64;
+	private int mUndoIndex = 0;
+	private int[] mUndoMoves = new int[UNDO_INCREMENT];
+	private Chesspiece[] mUndoPieces = new Chesspiece[UNDO_INCREMENT];
+	private Chesspiece[] mUndoCaptured = new Chesspiece[UNDO_INCREMENT];
+	private int[] mUndoCapturedSquares = new int[UNDO_INCREMENT];
+	private EnPassant[] mUndoEnPassants = new EnPassant[UNDO_INCREMENT];
+	private int[] mUndoMoveCounts = new int[UNDO_INCREMENT];
+	private boolean[] mUndoHasMoved = new boolean[UNDO_INCREMENT];
+	private long[] mUndoHashKeys = new long[UNDO_INCREMENT];
+
+	/**
+	 * The pieces captured and the last move made before the game was
+	 * restored from a snapshot, since they are not on the undo stack
+	 */
+	private Chesspiece[] mRestoredCaptures = new Chesspiece[0];
+	private int mRestoredLastMove = Move.NO_MOVE;
+
+	public Chessboard() {
+		createChessboard();
+		mPositionHashFactory = new PositionHashFactory(this);
+		publishState();
+	}
+
+	/**
+	 * Creates a chessboard set up as described by a FEN (Forsyth-Edwards
+	 * Notation) string, for example:
+	 * <p>
+	 * rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1
+	 * <p>
+	 * The halfmove count is optional and the fullmove number is ignored.
+	 * 
+	 * @param fen
+	 *            The position to set up
+	 * @throws IllegalArgumentException
+	 *             If the string is not a valid FEN position
+	 */
+	public Chessboard(String fen) {
+		createChessboard(fen);
+		mPositionHashFactory = new PositionHashFactory(this);
+		publishState();
+	}
+
+	/**
+	 * Sets the executor that runs the commands changing this game. The moves
+	 * must be made on the thread it runs on. By default a
+	 * {@link SerialExecutor} on a pool shared by all games is used; on
+	 * Android it's the UI thread.
+	 * 
+	 * @param executor
+	 *            Runs the commands one at a time, in order
+	 */
+	public void setExecutor(Executor executor) {
+		mExecutor = executor;
+	}
+
+	/**
+	 * Runs a command that changes this game after the commands sent before
+	 * it, on the thread of the game's executor. Does nothing after
+	 * shutdownClock().
+	 * 
+	 * @param command
+	 *            The command
+	 */
+	public void execute(final Runnable command) {
+		if (mShutDown) {
+			return;
+		}
+		mExecutor.execute(new Runnable() {
+			public void run() {
+				// Commands queued before the shutdown may still be waiting
+				if (!mShutDown) {
+					command.run();
+				}
+			}
+		});
+	}
+
+	/**
+	 * Gets the state published after the last change to this game. May be
+	 * called from any thread.
+	 * 
+	 * @return The state
+	 */
+	public GameState getState() {
+		return mState;
+	}
+
+	private void publishState() {
+		mState = new GameState(mPositionHashFactory.getIntMovesCount(),
+				mSideToMove, getLastMove(), mGameOver,
+				mPositionHashFactory.getMovesArray(),
+				mPositionHashFactory.getCurrentMovesIndex());
+	}
+
+	/**
+	 * Ends a game that ended between two moves, by resignation, agreement,
+	 * claim or timeout, and adds the result to its annotations. Results of
+	 * games ended by a move are added while the move is made.
+	 * 
+	 * @param winningColor
+	 *            The color that won, or {@link PositionHashFactory#DRAW}
+	 */
+	public void insertGameResult(int winningColor) {
+		mGameOver = true;
+		mPositionHashFactory.insertGameResult(winningColor);
+		publishState();
+	}
+
+	/**
+	 * Let the chessboard know that there will be a promotion during the next
+	 * move.
+	 * <p>
+	 * The flags are given as constants in this class.</br> NO_PROMOTION
+	 * probably shouldn't be used outside of this class.
+	 * 
+	 * @param flag
+	 *            NO_PROMOTION, QUEEN, ROOK, BISHOP or KNIGHT
+	 */
+	public void setPromotionFlag(int flag) {
+		mPromotionFlag = flag;
+	}
+
+	/**
+	 * Set the time for the clock to use.
+	 * 
+	 * @param startTime
+	 *            Starting time in millis
+	 * @param bonusTime
+	 *            Bonus time gained after each move in millis
+	 */
+	public void setTime(long startTime, long bonusTime) {
+		mStartTime = startTime;
+		mClock.setBonusTime(bonusTime);
+	}
+
+	/**
+	 * Stops the clock without a win by timeout. Used when the game ends by
+	 * some other means.
+	 */
+	public void stopClock() {
+		mClock.stop();
+		mGameOver = true;
+		publishState();
+	}
+
+	/**
+	 * Stops the clock like stopClock(), and waits until it has finished any
+	 * call to the listener that was in progress. Used before the listener
+	 * goes away: commands given to execute() are dropped from then on, also
+	 * those still waiting in the executor.
+	 * 
+	 * @param timeout
+	 *            The longest time to wait in millis
+	 * @return true if the clock is done with the listener
+	 * @throws InterruptedException
+	 *             If the thread was interrupted while waiting
+	 */
+	public boolean shutdownClock(long timeout) throws InterruptedException {
+		mShutDown = true;
+		mClock.stop();
+		return mClock.awaitIdle(timeout);
+	}
+
+	/**
+	 * Starts the clock, unless the game is played without one
+	 * 
+	 * @param startTime
+	 *            The starting time for each player
+	 * @param color
+	 *            The color whose clock should run first
+	 */
+	private void startClock(long startTime, int color) {
+		if (startTime == 0) {
+			return;
+		}
+		mClock.start(color);
+	}
+
+	/**
+	 * Ends the game when the time of a color has run out, unless it has ended
+	 * by other means since. Runs on the game's executor.
+	 * 
+	 * @param color
+	 *            The color that ran out of time
+	 */
+	private void timeOut(int color) {
+		if (mGameOver) {
+			return;
+		}
+		mGameOver = true;
+		publishState();
+		int enemy;
+		if (color == Chesspiece.WHITE) {
+			enemy = Chesspiece.BLACK;
+		} else {
+			enemy = Chesspiece.WHITE;
+		}
+		mListener.onTimeOut(enemy, mPositionHashFactory.getMoves());
+	}
+
+	/**
+	 * True if the clock has been started and has neither been stopped nor run
+	 * out of time
+	 * 
+	 * @return
+	 */
+	public boolean clockRunning() {
+		return mClock.isRunning();
+	}
+
+	/**
+	 * Initializes a new chessboard filled with {@link Chesspiece}s in their
+	 * starting position
+	 */
+	private void createChessboard() {
+		clearBoard();
+
+		for (int i = 0; i < COLUMNS; i++) {
+			placePiece(new Pawn(Chesspiece.BLACK, 1, i));
+			placePiece(new Pawn(Chesspiece.WHITE, ROWS - 2, i));
+		}
+		placePiece(new Rook(Chesspiece.BLACK, 0, 0));
+		placePiece(new Knight(Chesspiece.BLACK, 0, 1));
+		placePiece(new Bishop(Chesspiece.BLACK, 0, 2));
+		placePiece(new Queen(Chesspiece.BLACK, 0, 3));
+		placePiece(new King(Chesspiece.BLACK, 0, 4));
+		placePiece(new Bishop(Chesspiece.BLACK, 0, 5));
+		placePiece(new Knight(Chesspiece.BLACK, 0, 6));
+		placePiece(new Rook(Chesspiece.BLACK, 0, 7));
+
+		int row = ROWS - 1;
+		placePiece(new Rook(Chesspiece.WHITE, row, 0));
+		placePiece(new Knight(Chesspiece.WHITE, row, 1));
+		placePiece(new Bishop(Chesspiece.WHITE, row, 2));
+		placePiece(new Queen(Chesspiece.WHITE, row, 3));
+		placePiece(new King(Chesspiece.WHITE, row, 4));
+		placePiece(new Bishop(Chesspiece.WHITE, row, 5));
+		placePiece(new Knight(Chesspiece.WHITE, row, 6));
+		placePiece(new Rook(Chesspiece.WHITE, row, 7));
+		mHashKey ^= Zobrist.CASTLING[getCastlingRights()];
+	}
+
+	/**
+	 * Initializes a new chessboard from a FEN string
+	 * 
+	 * @param fen
+	 *            The position to set up
+	 */
+	private void createChessboard(String fen) {
+		clearBoard();
+
+		String[] fields = fen.trim().split("\\s+");
+		if (fields.length < 4) {
+			throw new IllegalArgumentException("Invalid FEN: " + fen);
+		}
+		int row = 0, column = 0;
+		for (int i = 0; i < fields[0].length(); i++) {
+			char c = fields[0].charAt(i);
+			if (c == '/') {
+				row++;
+				column = 0;
+			} else if (c >= '1' && c <= '8') {
+				column += c - '0';
+			} else if (row < ROWS && column < COLUMNS) {
+				placePiece(createPiece(c, row, column));
+				column++;
+			} else {
+				throw new IllegalArgumentException("Invalid FEN: " + fen);
+			}
+		}
+		String castling = fields[2];
+		int rights = 0;
+		if (castling.indexOf('K') != -1) {
+			rights |= Zobrist.WHITE_KINGSIDE;
+		}
+		if (castling.indexOf('Q') != -1) {
+			rights |= Zobrist.WHITE_QUEENSIDE;
+		}
+		if (castling.indexOf('k') != -1) {
+			rights |= Zobrist.BLACK_KINGSIDE;
+		}
+		if (castling.indexOf('q') != -1) {
+			rights |= Zobrist.BLACK_QUEENSIDE;
+		}
+		int enPassantSquare = Bitboard.NO_SQUARE;
+		if (!fields[3].equals("-")) {
+			int enPassantColumn = fields[3].charAt(0) - 'a';
+			int enPassantRow = ROWS - (fields[3].charAt(1) - '0');
+			if (enPassantColumn < 0 || enPassantColumn >= COLUMNS
+					|| enPassantRow < 0 || enPassantRow >= ROWS) {
+				throw new IllegalArgumentException("Invalid En-Passant square: "
+						+ fen);
+			}
+			enPassantSquare = Bitboard.square(enPassantRow, enPassantColumn);
+		}
+		int sideToMove = fields[1].equals("b") ? Chesspiece.BLACK
+				: Chesspiece.WHITE;
+		int moveCount = fields.length > 4 ? Integer.parseInt(fields[4]) : 0;
+		setupState(rights, sideToMove, enPassantSquare, moveCount);
+	}
+
+	/**
+	 * Sets up everything but the pieces of a position, once the pieces have
+	 * been placed
+	 * 
+	 * @param rights
+	 *            The castling rights defined in {@link Zobrist}
+	 * @param sideToMove
+	 *            The color to move
+	 * @param enPassantSquare
+	 *            The En-Passant square, or Bitboard.NO_SQUARE
+	 * @param moveCount
+	 *            The count towards the 50-move rule
+	 * @throws IllegalArgumentException
+	 *             If a king is missing or there is no pawn that could have
+	 *             left the En-Passant square
+	 */
+	private void setupState(int rights, int sideToMove, int enPassantSquare,
+			int moveCount) {
+		if (mBitboard.getKingSquare(Chesspiece.WHITE) == Bitboard.NO_SQUARE
+				|| mBitboard.getKingSquare(Chesspiece.BLACK) == Bitboard.NO_SQUARE) {
+			throw new IllegalArgumentException("Both kings are required");
+		}
+
+		// Kings and rooks are created as moved, the castling rights say
+		// which of them haven't
+		if ((rights & Zobrist.WHITE_KINGSIDE) != 0) {
+			setUnmoved(ROWS - 1, 4);
+			setUnmoved(ROWS - 1, 7);
+		}
+		if ((rights & Zobrist.WHITE_QUEENSIDE) != 0) {
+			setUnmoved(ROWS - 1, 4);
+			setUnmoved(ROWS - 1, 0);
+		}
+		if ((rights & Zobrist.BLACK_KINGSIDE) != 0) {
+			setUnmoved(0, 4);
+			setUnmoved(0, 7);
+		}
+		if ((rights & Zobrist.BLACK_QUEENSIDE) != 0) {
+			setUnmoved(0, 4);
+			setUnmoved(0, 0);
+		}
+		mHashKey ^= Zobrist.CASTLING[getCastlingRights()];
+
+		if (sideToMove == Chesspiece.BLACK) {
+			mSideToMove = Chesspiece.BLACK;
+			mHashKey ^= Zobrist.SIDE;
+		}
+
+		if (enPassantSquare != Bitboard.NO_SQUARE) {
+			int enPassantRow = Bitboard.row(enPassantSquare);
+			// The pawn stands one row further from its own side
+			int pawnRow = enPassantRow == ROWS - 3 ? enPassantRow - 1
+					: enPassantRow + 1;
+			Chesspiece pawn = null;
+			if (pawnRow >= 0 && pawnRow < ROWS) {
+				pawn = getPieceAt(pawnRow, Bitboard.column(enPassantSquare));
+			}
+			if (!(pawn instanceof Pawn)) {
+				throw new IllegalArgumentException("Invalid En-Passant square: "
+						+ enPassantSquare);
+			}
+			placeEnPassant(new EnPassant((Pawn) pawn));
+		}
+
+		mMoveCount = moveCount;
+	}
+
+	/**
+	 * Empties the board and forgets everything about the game played on it
+	 */
+	private void clearBoard() {
+		mSquares = new Chesspiece[ROWS * COLUMNS];
+		mBitboard = new Bitboard();
+		mMoveGenerator = new MoveGenerator(this, mBitboard);
+		mEnPassant = null;
+		mSideToMove = Chesspiece.WHITE;
+		mHashKey = 0;
+		mEnPassantKey = 0;
+		mMoveCount = 0;
+		mUndoIndex = 0;
+		mRestoredCaptures = new Chesspiece[0];
+		mRestoredLastMove = Move.NO_MOVE;
+	}
+
+	/**
+	 * Creates the piece described by a FEN character. Pawns away from their
+	 * starting row, kings and rooks are marked as moved.
+	 */
+	private Chesspiece createPiece(char c, int row, int column) {
+		int color = Character.isUpperCase(c) ? Chesspiece.WHITE
+				: Chesspiece.BLACK;
+		Chesspiece piece;
+		switch (Character.toLowerCase(c)) {
+		case 'p':
+			piece = new Pawn(color, row, column);
+			int startRow = color == Chesspiece.WHITE ? ROWS - 2 : 1;
+			piece.setHasMoved(row != startRow);
+			return piece;
+		case 'n':
+			return new Knight(color, row, column);
+		case 'b':
+			return new Bishop(color, row, column);
+		case 'r':
+			piece = new Rook(color, row, column);
+			piece.setHasMoved(true);
+			return piece;
+		case 'q':
+			return new Queen(color, row, column);
+		case 'k':
+			piece = new King(color, row, column);
+			piece.setHasMoved(true);
+			return piece;
+		}
+		throw new IllegalArgumentException("Unknown piece: " + c);
+	}
+
+	/**
+	 * Marks the king or rook on the provided tile as unmoved, if there is one
+	 */
+	private void setUnmoved(int row, int column) {
+		Chesspiece piece = getPieceAt(row, column);
+		if (piece instanceof King || piece instanceof Rook) {
+			piece.setHasMoved(false);
+		}
+	}
+
+	/**
+	 * Places the piece on the square given by its own row and column
+	 * 
+	 * @param piece
+	 *            The piece to place
+	 */
+	private void placePiece(Chesspiece piece) {
+		placePiece(piece, Bitboard.square(piece.getRow(), piece.getColumn()));
+	}
+
+	/**
+	 * Places the piece on the provided square and updates the bitboards
+	 * 
+	 * @param piece
+	 *            The piece to place
+	 * @param square
+	 *            The square to place it on
+	 */
+	private void placePiece(Chesspiece piece, int square) {
+		piece.setChessboard(this);
+		mSquares[square] = piece;
+		mBitboard.add(piece.getColor(), piece.getType(), square);
+		mHashKey ^= Zobrist.PIECES[piece.getColor()][piece.getType()][square];
+		mMoveGenerator.invalidate();
+	}
+
+	/**
+	 * Removes whatever piece is standing on the provided square and updates
+	 * the bitboards
+	 * 
+	 * @param square
+	 *            The square to clear
+	 * @return The piece that was removed, or null if the square was empty
+	 */
+	private Chesspiece removePiece(int square) {
+		Chesspiece piece = mSquares[square];
+		if (piece != null && !(piece instanceof EnPassant)) {
+			mBitboard.remove(piece.getColor(), piece.getType(), square);
+			mHashKey ^= Zobrist.PIECES[piece.getColor()][piece.getType()][square];
+		}
+		mSquares[square] = null;
+		mMoveGenerator.invalidate();
+		return piece;
+	}
+
+	/**
+	 * Removes the current En-Passant opportunity (if there is one)
+	 */
+	private void removeEnPassant() {
+		if (mEnPassant != null) {
+			mHashKey ^= mEnPassantKey;
+			mEnPassantKey = 0;
+			mSquares[mBitboard.getEnPassantSquare()] = null;
+			mBitboard.setEnPassantSquare(Bitboard.NO_SQUARE);
+			mEnPassant = null;
+			mMoveGenerator.invalidate();
+		}
+	}
+
+	/**
+	 * Gets the number of halfmoves made since the last capture or pawn move
+	 * 
+	 * @return The count used for the 50-move rule
+	 */
+	public int getMoveCount() {
+		return mMoveCount;
+	}
+
+	/**
+	 * Gets the Zobrist hash of the current position
+	 * 
+	 * @return A hash identifying the pieces on the board, the castling rights,
+	 *         the En-Passant square and the color to move
+	 */
+	public long getHashKey() {
+		return mHashKey;
+	}
+
+	/**
+	 * Finds the castles that are still available to both players
+	 * 
+	 * @return A combination of the castling rights defined in {@link Zobrist}
+	 */
+	private int getCastlingRights() {
+		int rights = 0;
+		int row = ROWS - 1;
+		if (canStillCastle(Chesspiece.WHITE, row, 7)) {
+			rights |= Zobrist.WHITE_KINGSIDE;
+		}
+		if (canStillCastle(Chesspiece.WHITE, row, 0)) {
+			rights |= Zobrist.WHITE_QUEENSIDE;
+		}
+		if (canStillCastle(Chesspiece.BLACK, 0, 7)) {
+			rights |= Zobrist.BLACK_KINGSIDE;
+		}
+		if (canStillCastle(Chesspiece.BLACK, 0, 0)) {
+			rights |= Zobrist.BLACK_QUEENSIDE;
+		}
+		return rights;
+	}
+
+	/**
+	 * Checks that neither the king nor the rook in the provided corner has
+	 * moved. This says nothing about whether the castle is legal right now.
+	 */
+	private boolean canStillCastle(int color, int row, int rookColumn) {
+		Chesspiece king = getPieceAt(row, 4);
+		Chesspiece rook = getPieceAt(row, rookColumn);
+		return king instanceof King && king.getColor() == color
+				&& !king.hasMoved() && rook instanceof Rook
+				&& rook.getColor() == color && !rook.hasMoved();
+	}
+
+	/**
+	 * Returns the opposing color of the provided color
+	 * 
+	 * @param color
+	 *            WHITE or BLACK as defined in {@link Chesspiece}
+	 * @return BLACK if color is WHITE, otherwise WHITE
+	 */
+	private int enemyOf(int color) {
+		if (color == Chesspiece.WHITE) {
+			return Chesspiece.BLACK;
+		}
+		return Chesspiece.WHITE;
+	}
+
+	/**
+	 * This method checks if the provided move will result in the piece's
+	 * color's king being in check
+	 * 
+	 * @param piece
+	 *            The piece to move
+	 * @param row
+	 *            The row to move to
+	 * @param column
+	 *            The column to move to
+	 * @return True if the king ends up in check
+	 */
+	public boolean kingInCheckAfter(Chesspiece piece, int row, int column) {
+		Chesspiece oldPiece = getPieceAt(row, column);
+		if (oldPiece instanceof King && oldPiece.getColor() == piece.getColor()) {
+			return false;
+		}
+		int from = Bitboard.square(piece.getRow(), piece.getColumn());
+		int to = Bitboard.square(row, column);
+
+		// The board as it would look after the move. Nothing is changed, the
+		// bitboards are simply masked.
+		long occupied = (mBitboard.getOccupied() & ~Bitboard.bit(from))
+				| Bitboard.bit(to);
+		// A captured piece can no longer give check
+		long attackers = ~Bitboard.bit(to);
+		if (piece instanceof Pawn && to == mBitboard.getEnPassantSquare()) {
+			Pawn captured = mEnPassant.getPawn();
+			long capturedBit = Bitboard.bit(Bitboard.square(captured.getRow(),
+					captured.getColumn()));
+			occupied &= ~capturedBit;
+			attackers &= ~capturedBit;
+		}
+		int king;
+		if (piece instanceof King) {
+			king = to;
+		} else {
+			king = mBitboard.getKingSquare(piece.getColor());
+		}
+		return mBitboard.isAttacked(king, enemyOf(piece.getColor()), occupied,
+				attackers);
+	}
+
+	/**
+	 * Fetches the {@link Chesspiece} at the given position
+	 * 
+	 * @param row
+	 *            The row to fetch the piece from
+	 * @param column
+	 *            The column to fetch the piece from
+	 * @return The piece located at the provided position
+	 */
+	public Chesspiece getPieceAt(int row, int column) {
+		return mSquares[Bitboard.square(row, column)];
+	}
+
+	/**
+	 * Gets the bitboards representing the current board state
+	 * 
+	 * @return The {@link Bitboard} backing this chessboard
+	 */
+	protected Bitboard getBitboard() {
+		return mBitboard;
+	}
+
+	/**
+	 * Gets every square the provided piece can legally move to
+	 * 
+	 * @param piece
+	 *            The piece to move
+	 * @return A bitboard of the legal target squares as defined in
+	 *         {@link Bitboard}
+	 */
+	protected long getLegalTargets(Chesspiece piece) {
+		return mMoveGenerator.legalTargets(piece);
+	}
+
+	/**
+	 * Writes every legal move of the color to move into the provided list
+	 * 
+	 * @param moves
+	 *            The list to fill, encoded by {@link Move}. It is cleared
+	 *            first
+	 * @return The number of legal moves
+	 */
+	public int getLegalMoves(MoveList moves) {
+		return mMoveGenerator.generateMoves(mSideToMove, moves);
+	}
+
+	/**
+	 * Places the provided {@link EnPassant} onto the chessboard
+	 * 
+	 * @param enPassant
+	 */
+	public void placeEnPassant(EnPassant enPassant) {
+		int square = Bitboard.square(enPassant.getRow(), enPassant.getColumn());
+		enPassant.setChessboard(this);
+		/*
+		 * The opportunity only makes the position different if an enemy pawn
+		 * can actually take it. Otherwise it would hide a repetition of the
+		 * position before the pawn moved.
+		 */
+		int color = enPassant.getPawn().getColor();
+		if ((Bitboard.PAWN_ATTACKS[color][square] & mBitboard.getPieces(
+				enemyOf(color), Bitboard.PAWN)) != 0) {
+			mEnPassantKey = Zobrist.EN_PASSANT[enPassant.getColumn()];
+			mHashKey ^= mEnPassantKey;
+		}
+		mEnPassant = enPassant;
+		mSquares[square] = enPassant;
+		mBitboard.setEnPassantSquare(square);
+		mMoveGenerator.invalidate();
+	}
+
+	/**
+	 * Returns an int explaining what type of piece(if any) is in the given tile
+	 * 
+	 * @param row
+	 *            The row to check
+	 * @param column
+	 *            The column to check
+	 * @param showEnPassant
+	 *            Use this flag to determine if you want EN_PASSANT to be a
+	 *            returnable value. If this is false EN_PASSANT will be returned
+	 *            as NO_PIECE
+	 * @return NO_PIECE, EN_PASSANT, BLACK or WHITE as defined in
+	 *         {@link Chesspiece}
+	 */
+	public int tileContains(int row, int column, boolean showEnPassant) {
+		int square = Bitboard.square(row, column);
+		long bit = Bitboard.bit(square);
+		if ((mBitboard.getColor(Chesspiece.WHITE) & bit) != 0) {
+			return Chesspiece.WHITE;
+		} else if ((mBitboard.getColor(Chesspiece.BLACK) & bit) != 0) {
+			return Chesspiece.BLACK;
+		} else if (showEnPassant && square == mBitboard.getEnPassantSquare()) {
+			return Chesspiece.EN_PASSANT;
+		} else
+			return Chesspiece.NO_PIECE;
+	}
+
+	/**
+	 * Set this to block the current player from losing from time out until the
+	 * current next call to move() is completed
+	 * 
+	 * @param moving
+	 *            Should probably only ever be set to true from outside this
+	 *            class
+	 */
+	public void setMoving(boolean moving) {
+		mClock.setMoving(moving);
+	}
+
+	/**
+	 * Returns the chesspiece of the same class and color as the provided piece
+	 * which is located on the provided row
+	 * 
+	 * @param piece
+	 *            The piece to compare to
+	 * @param row
+	 *            The row the piece you want is located on
+	 * @return The first piece located on this row which matches the class and
+	 *         color of the provided piece
+	 */
+	protected Chesspiece getPieceOnRow(Chesspiece piece, int row) {
+		return getOtherPiece(piece, Bitboard.rowMask(row));
+	}
+
+	/**
+	 * Returns the chesspiece of the same class and color as the provided piece
+	 * which is located on the provided column
+	 * 
+	 * @param piece
+	 *            The piece to compare to
+	 * @param column
+	 *            The column the piece you want is located on
+	 * @return The first piece located on this column which matches the class
+	 *         and color of the provided piece
+	 */
+	protected Chesspiece getPieceOnColumn(Chesspiece piece, int column) {
+		return getOtherPiece(piece, Bitboard.columnMask(column));
+	}
+
+	/**
+	 * Finds the piece of the same type and color as the provided piece on the
+	 * lowest square within the mask
+	 */
+	private Chesspiece getOtherPiece(Chesspiece piece, long mask) {
+		long others = mBitboard.getPieces(piece.getColor(), piece.getType())
+				& mask & ~Bitboard.bit(piece.getSquare());
+		if (others == 0) {
+			return null;
+		}
+		return mSquares[Long.numberOfTrailingZeros(others)];
+	}
+
+	/**
+	 * Checks if the provided piece can legally move to the provided square
+	 */
+	private boolean canMoveTo(Chesspiece piece, int square) {
+		return (mMoveGenerator.legalTargets(piece) & Bitboard.bit(square)) != 0;
+	}
+
+	/**
+	 * Finds the pawn on the provided row of the provided color that can move to
+	 * the provided coordinates
+	 * 
+	 * @param color
+	 *            The color of the pawn you want
+	 * @param column
+	 *            The column where the pawn is located
+	 * @param legalRow
+	 *            The row that must be a legal target for the pawn
+	 * @param legalColumn
+	 *            The column that must be a legal target for the pawn
+	 * @return The pawn specified by the parameters
+	 */
+	protected Chesspiece getPawnOnColumn(int color, int column, int legalRow,
+			int legalColumn) {
+		long pawns = mBitboard.getPieces(color, Bitboard.PAWN)
+				& Bitboard.columnMask(column);
+		int target = Bitboard.square(legalRow, legalColumn);
+		for (; pawns != 0; pawns &= pawns - 1) {
+			Chesspiece pawn = mSquares[Long.numberOfTrailingZeros(pawns)];
+			if (canMoveTo(pawn, target)) {
+				return pawn;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Finds the first piece that can move to the provided row and column and is
+	 * also of the same class and color as the provided piece
+	 * 
+	 * @param piece
+	 *            The piece to compare to
+	 * @param row
+	 *            The row that must be a legal target
+	 * @param column
+	 *            The column that must be a legal target
+	 * @return The piece matching the provided piece which can also move the the
+	 *         provided row and column
+	 */
+	protected Chesspiece otherPieceCanMoveTo(Chesspiece piece, int row,
+			int column) {
+		if (!(piece instanceof King) && !(piece instanceof Pawn)) {
+			long others = mBitboard.getPieces(piece.getColor(), piece.getType())
+					& ~Bitboard.bit(piece.getSquare());
+			int target = Bitboard.square(row, column);
+			for (; others != 0; others &= others - 1) {
+				Chesspiece other = mSquares[Long.numberOfTrailingZeros(others)];
+				if (canMoveTo(other, target)) {
+					return other;
+				}
+			}
+		}
+		return null;
+	}
+
+	public void setListener(ChessboardListener listener) {
+		mListener = listener;
+	}
+
+	/**
+	 * Gets the color whose turn it is
+	 * 
+	 * @return WHITE or BLACK as defined in {@link Chesspiece}
+	 */
+	public int getSideToMove() {
+		return mSideToMove;
+	}
+
+	/**
+	 * Makes the provided move on the board without notifying the
+	 * {@link ChessboardListener} or the clock. The move can be taken back with
+	 * unmakeMove().
+	 * <p>
+	 * Castling (the king moving two columns), en passant and promotion are
+	 * handled here, as are castling rights, the En-Passant opportunity and the
+	 * 50-move count.
+	 * <p>
+	 * Note: This method does no error-checking and simply assumes that the move
+	 * is legal
+	 * 
+	 * @param move
+	 *            The move as encoded by {@link Move}
+	 */
+	public void makeMove(int move) {
+		int from = Move.getFrom(move);
+		int to = Move.getTo(move);
+		int promotion = Move.getPromotion(move);
+		Chesspiece piece = mSquares[from];
+
+		if (mUndoIndex == mUndoMoves.length) {
+			expandUndoStack();
+		}
+		int index = mUndoIndex++;
+		mUndoMoves[index] = move;
+		mUndoPieces[index] = piece;
+		mUndoEnPassants[index] = mEnPassant;
+		mUndoMoveCounts[index] = mMoveCount;
+		mUndoHasMoved[index] = piece.hasMoved();
+		mUndoHashKeys[index] = mHashKey;
+		int castlingRights = getCastlingRights();
+
+		int capturedSquare = to;
+		if (piece instanceof Pawn && to == mBitboard.getEnPassantSquare()) {
+			capturedSquare = mEnPassant.getPawn().getSquare();
+		}
+		removeEnPassant();
+		removePiece(from);
+		Chesspiece captured = removePiece(capturedSquare);
+		mUndoCaptured[index] = captured;
+		mUndoCapturedSquares[index] = capturedSquare;
+
+		// Castle
+		if (piece instanceof King && Math.abs(to - from) == 2) {
+			int rookFrom = to > from ? from + 3 : from - 4;
+			moveRook(rookFrom, (from + to) / 2, true);
+		}
+
+		piece.setRow(Bitboard.row(to));
+		piece.setColumn(Bitboard.column(to));
+		piece.setHasMoved(true);
+		if (promotion != NO_PROMOTION) {
+			Chesspiece promoted = getPieceByFlag(promotion, piece.getColor(),
+					Bitboard.row(to), Bitboard.column(to));
+			// A promoted rook can't be used to castle
+			promoted.setHasMoved(true);
+			placePiece(promoted, to);
+		} else {
+			placePiece(piece, to);
+		}
+
+		if (piece instanceof Pawn && Math.abs(to - from) == 16) {
+			placeEnPassant(new EnPassant((Pawn) piece));
+		}
+		if (piece instanceof Pawn || captured != null) {
+			mMoveCount = 0;
+		} else {
+			mMoveCount++;
+		}
+		mSideToMove = enemyOf(mSideToMove);
+		mHashKey ^= Zobrist.SIDE ^ Zobrist.CASTLING[castlingRights]
+				^ Zobrist.CASTLING[getCastlingRights()];
+	}
+
+	/**
+	 * Takes back the last move made by makeMove(), restoring the captured
+	 * piece, castling rights, the En-Passant opportunity and the 50-move count
+	 * as they were before the move.
+	 */
+	public void unmakeMove() {
+		int index = --mUndoIndex;
+		int move = mUndoMoves[index];
+		int from = Move.getFrom(move);
+		int to = Move.getTo(move);
+		Chesspiece piece = mUndoPieces[index];
+		Chesspiece captured = mUndoCaptured[index];
+
+		removeEnPassant();
+		// Removes the promoted piece as well
+		removePiece(to);
+		piece.setRow(Bitboard.row(from));
+		piece.setColumn(Bitboard.column(from));
+		piece.setHasMoved(mUndoHasMoved[index]);
+		placePiece(piece, from);
+
+		// Castle
+		if (piece instanceof King && Math.abs(to - from) == 2) {
+			int rookFrom = to > from ? from + 3 : from - 4;
+			moveRook((from + to) / 2, rookFrom, false);
+		}
+
+		if (captured != null) {
+			placePiece(captured, mUndoCapturedSquares[index]);
+		}
+		if (mUndoEnPassants[index] != null) {
+			placeEnPassant(mUndoEnPassants[index]);
+		}
+		mMoveCount = mUndoMoveCounts[index];
+		mSideToMove = enemyOf(mSideToMove);
+		// The stored key also restores the side to move and castling rights
+		mHashKey = mUndoHashKeys[index];
+
+		mUndoPieces[index] = null;
+		mUndoCaptured[index] = null;
+		mUndoEnPassants[index] = null;
+	}
+
+	/**
+	 * Gets the piece captured by the last move made by makeMove()
+	 * 
+	 * @return The captured piece, or null if the last move was not a capture
+	 */
+	protected Chesspiece getLastCaptured() {
+		if (mUndoIndex == 0) {
+			return null;
+		}
+		return mUndoCaptured[mUndoIndex - 1];
+	}
+
+	/**
+	 * Moves the rook taking part in a castle. A rook can only castle if it
+	 * hasn't moved, so hasMoved is simply set or cleared.
+	 */
+	private void moveRook(int from, int to, boolean hasMoved) {
+		Chesspiece rook = removePiece(from);
+		rook.setRow(Bitboard.row(to));
+		rook.setColumn(Bitboard.column(to));
+		rook.setHasMoved(hasMoved);
+		placePiece(rook, to);
+	}
+
+	private void expandUndoStack() {
+		int length = mUndoMoves.length + UNDO_INCREMENT;
+		mUndoMoves = Arrays.copyOf(mUndoMoves, length);
+		mUndoPieces = Arrays.copyOf(mUndoPieces, length);
+		mUndoCaptured = Arrays.copyOf(mUndoCaptured, length);
+		mUndoCapturedSquares = Arrays.copyOf(mUndoCapturedSquares, length);
+		mUndoEnPassants = Arrays.copyOf(mUndoEnPassants, length);
+		mUndoMoveCounts = Arrays.copyOf(mUndoMoveCounts, length);
+		mUndoHasMoved = Arrays.copyOf(mUndoHasMoved, length);
+		mUndoHashKeys = Arrays.copyOf(mUndoHashKeys, length);
+	}
+
+	/**
+	 * Moves the piece to the provided row and column, runs the clock and lets
+	 * the {@link ChessboardListener} know about it.
+	 * <p>
+	 * Note: This method does no error-checking and simply assumes that the move
+	 * is legal
+	 * 
+	 * @param piece
+	 *            The piece to move
+	 * @param row
+	 *            The piece's new row position
+	 * @param column
+	 *            The piece's new column position
+	 * @param oldRow
+	 *            The piece's old row position
+	 * @param oldColumn
+	 *            The piece's old column position
+	 */
+	public void move(Chesspiece piece, int row, int column, int oldRow,
+			int oldColumn) {
+		mListener.onMoveStarted();
+		Chesspiece[] others = getAmbiguousPieces(piece, row, column, oldRow,
+				oldColumn);
+		int flag = mPromotionFlag;
+		mPromotionFlag = NO_PROMOTION;
+		int oldMoveCount = mMoveCount;
+		makeMove(Move.create(Bitboard.square(oldRow, oldColumn),
+				Bitboard.square(row, column), flag));
+		mPositionHashFactory.hashPosition();
+		mListener.onMoveMade(oldRow, oldColumn, row, column);
+		Chesspiece captured = getLastCaptured();
+		if (captured != null) {
+			mListener.onPieceCaptured(captured);
+		}
+		getKing(piece.getColor()).setInCheck(false);
+		mListener.onCheckChanged(piece.getColor(), false);
+		int status = checkForGameEnd(piece.getColor());
+
+		if (!firstMove) {
+			mClock.press();
+		} else {
+			firstMove = false;
+			mClock.setTime(Chesspiece.WHITE, mStartTime);
+			mClock.setTime(Chesspiece.BLACK, mStartTime);
+			startClock(mStartTime, mSideToMove);
+		}
+		mClock.setMoving(false);
+		if (status == GAMENOTOVER) {
+			mListener.onPlayerSwitched();
+			if (mMoveCount >= 2 * 50) {
+				mListener.onDrawClaimableChanged(true);
+			} else if (oldMoveCount >= 2 * 50) {
+				mListener.onDrawClaimableChanged(false);
+			}
+		}
+		boolean check = false, checkmate = false;
+		int color = Chesspiece.WHITE;
+		if (piece.getColor() == Chesspiece.WHITE) {
+			color = Chesspiece.BLACK;
+		}
+		if (status == CHECKMATE) {
+			checkmate = true;
+		} else if (getKing(color).isInCheck()) {
+			check = true;
+		}
+		mPositionHashFactory.insertMove(this, piece, row, column, oldRow,
+				oldColumn, captured, flag, check, checkmate, others[0], others[1]);
+		publishState();
+		if (status == GAMENOTOVER) {
+			mListener.onGameStateChanged(
+					mPositionHashFactory.getIntMovesCount(),
+					mPositionHashFactory.getLastIntMove(),
+					mClock.getTime(Chesspiece.WHITE),
+					mClock.getTime(Chesspiece.BLACK));
+		}
+	}
+
+	/**
+	 * Replays a move of a saved game.
+	 * <p>
+	 * The move is made and annotated just like move() would, but the listener
+	 * is not notified, the clock is left alone and the game is not checked for
+	 * an end. Call publishPosition() once the last move has been replayed.
+	 * 
+	 * @param row
+	 *            The row to move to
+	 * @param column
+	 *            The column to move to
+	 * @param oldRow
+	 *            The row to move from
+	 * @param oldColumn
+	 *            The column to move from
+	 * @param flag
+	 *            The promotion flag of the move
+	 * @throws IllegalArgumentException
+	 *             If the move is not legal
+	 */
+	void replayMove(int row, int column, int oldRow, int oldColumn, int flag) {
+		Chesspiece piece = getPieceAt(oldRow, oldColumn);
+		if (piece == null || piece.getColor() != mSideToMove
+				|| (getLegalTargets(piece) & Bitboard.bit(Bitboard.square(row,
+						column))) == 0) {
+			throw new IllegalArgumentException("Illegal move: " + oldRow
+					+ oldColumn + " to " + row + column);
+		}
+		Chesspiece[] others = getAmbiguousPieces(piece, row, column, oldRow,
+				oldColumn);
+		makeMove(Move.create(Bitboard.square(oldRow, oldColumn),
+				Bitboard.square(row, column), flag));
+		mPositionHashFactory.hashPosition();
+		mPositionHashFactory.insertMove(this, piece, row, column, oldRow,
+				oldColumn, getLastCaptured(), flag, isInCheck(mSideToMove),
+				false, others[0], others[1]);
+	}
+
+	/**
+	 * Notifies the listener of the position reached by replayMove() or
+	 * restoreSnapshot() and starts the clock of the color to move, as if the
+	 * moves had been made one by one
+	 */
+	void publishPosition() {
+		for (Chesspiece captured : getCapturedPieces()) {
+			mListener.onPieceCaptured(captured);
+		}
+		int move = getLastMove();
+		if (move != Move.NO_MOVE) {
+			mListener.onMoveMade(Bitboard.row(Move.getFrom(move)),
+					Bitboard.column(Move.getFrom(move)),
+					Bitboard.row(Move.getTo(move)),
+					Bitboard.column(Move.getTo(move)));
+		}
+		boolean inCheck = isInCheck(mSideToMove);
+		getKing(mSideToMove).setInCheck(inCheck);
+		mListener.onCheckChanged(mSideToMove, inCheck);
+		if (mMoveCount >= 2 * 50) {
+			mListener.onDrawClaimableChanged(true);
+		}
+		if (move != Move.NO_MOVE && firstMove) {
+			firstMove = false;
+			startClock(mStartTime, mSideToMove);
+		}
+		publishState();
+	}
+
+	/**
+	 * Captures everything needed to continue this game later without
+	 * replaying its moves. See restoreSnapshot()
+	 * 
+	 * @return The snapshot in the binary form of {@link PositionSnapshot}
+	 */
+	public byte[] getSnapshot() {
+		byte[] pieces = new byte[ROWS * COLUMNS];
+		for (int square = 0; square < pieces.length; square++) {
+			Chesspiece piece = mSquares[square];
+			if (piece != null && !(piece instanceof EnPassant)) {
+				pieces[square] = PositionSnapshot.pieceCode(piece);
+			}
+		}
+		List<Chesspiece> captured = getCapturedPieces();
+		byte[] capturedCodes = new byte[captured.size()];
+		for (int i = 0; i < capturedCodes.length; i++) {
+			capturedCodes[i] = PositionSnapshot.pieceCode(captured.get(i));
+		}
+		return new PositionSnapshot(mPositionHashFactory.getIntMovesCount(),
+				pieces, mSideToMove, getCastlingRights(),
+				mBitboard.getEnPassantSquare(), mMoveCount, mHashKey,
+				mPositionHashFactory.getHashHistory(),
+				mClock.getTime(Chesspiece.WHITE),
+				mClock.getTime(Chesspiece.BLACK), getLastMove(), capturedCodes,
+				mPositionHashFactory.getAnnotations()).toByteArray();
+	}
+
+	/**
+	 * Restores a game saved by getSnapshot(), replacing whatever is on this
+	 * board. Moves made after the snapshot was taken are replayed on top of
+	 * it. Like rebuilding the game from its moves, the listener is notified
+	 * once of the restored position and the clock is started.
+	 * 
+	 * @param data
+	 *            The snapshot
+	 * @param moves
+	 *            The moves of the game, as returned by
+	 *            {@link PositionHashFactory#getIntMoves()}. The snapshot must
+	 *            have been taken after one of them
+	 * @return True if the game was restored. False if the snapshot is corrupt
+	 *         or doesn't match the moves, in which case the board is left in
+	 *         the starting position and the moves should be replayed instead
+	 */
+	public boolean restoreSnapshot(byte[] data, String moves) {
+		PositionSnapshot snapshot;
+		try {
+			snapshot = PositionSnapshot.read(data);
+		} catch (IOException e) {
+			return false;
+		}
+		String[] intMoves = moves.split(" ");
+		long[] history = snapshot.mHashHistory;
+		if (snapshot.mPlies > intMoves.length
+				|| snapshot.mAnnotations.length != snapshot.mPlies
+				|| history.length == 0) {
+			return false;
+		}
+		Chesspiece[] captured = new Chesspiece[snapshot.mCaptured.length];
+		try {
+			clearBoard();
+			for (int square = 0; square < ROWS * COLUMNS; square++) {
+				byte code = snapshot.mPieces[square];
+				if (code != 0) {
+					placePiece(createPiece(PositionSnapshot.fenCharacter(code),
+							Bitboard.row(square), Bitboard.column(square)));
+				}
+			}
+			setupState(snapshot.mCastlingRights, snapshot.mSideToMove,
+					snapshot.mEnPassantSquare, snapshot.mMoveCount);
+			for (int i = 0; i < captured.length; i++) {
+				captured[i] = createPiece(
+						PositionSnapshot.fenCharacter(snapshot.mCaptured[i]),
+						0, 0);
+			}
+		} catch (IllegalArgumentException e) {
+			createChessboard();
+			return false;
+		}
+		// The hash is computed from the restored pieces, so this catches a
+		// snapshot that doesn't describe the position it claims to
+		if (mHashKey != snapshot.mHashKey
+				|| history[history.length - 1] != mHashKey) {
+			createChessboard();
+			return false;
+		}
+		mRestoredCaptures = captured;
+		mRestoredLastMove = snapshot.mLastMove;
+		mPositionHashFactory.restore(history, snapshot.mAnnotations,
+				Arrays.copyOf(intMoves, snapshot.mPlies));
+		mClock.setTime(Chesspiece.WHITE, snapshot.mWhiteTime);
+		mClock.setTime(Chesspiece.BLACK, snapshot.mBlackTime);
+		try {
+			mPositionHashFactory.replayMoves(intMoves, snapshot.mPlies);
+		} catch (IllegalArgumentException e) {
+			createChessboard();
+			mPositionHashFactory = new PositionHashFactory(this);
+			return false;
+		}
+		publishPosition();
+		return true;
+	}
+
+	/**
+	 * Gets every piece captured so far, in the order they were captured
+	 */
+	private List<Chesspiece> getCapturedPieces() {
+		List<Chesspiece> captured = new ArrayList<Chesspiece>(
+				Arrays.asList(mRestoredCaptures));
+		for (int i = 0; i < mUndoIndex; i++) {
+			if (mUndoCaptured[i] != null) {
+				captured.add(mUndoCaptured[i]);
+			}
+		}
+		return captured;
+	}
+
+	/**
+	 * Gets the last move made in this game
+	 * 
+	 * @return The move encoded by {@link Move}, or Move.NO_MOVE
+	 */
+	private int getLastMove() {
+		if (mUndoIndex > 0) {
+			return mUndoMoves[mUndoIndex - 1];
+		}
+		return mRestoredLastMove;
+	}
+
+	/**
+	 * Finds the other pieces that could have made the same move, which the
+	 * chess annotation needs to tell them apart
+	 * 
+	 * @return The piece that could also move to the row and column, and the
+	 *         third piece if the first one shares a row or column with the
+	 *         moving piece. Either may be null
+	 */
+	private Chesspiece[] getAmbiguousPieces(Chesspiece piece, int row,
+			int column, int oldRow, int oldColumn) {
+		int square = Bitboard.square(row, column);
+		Chesspiece other = otherPieceCanMoveTo(piece, row, column);
+		Chesspiece other2 = null;
+		if (other != null && other.getRow() == oldRow) {
+			other2 = getPieceOnColumn(piece, oldColumn);
+			if (other2 == null || !canMoveTo(other2, square)) {
+				other2 = null;
+			}
+		} else if (other != null && other.getColumn() == oldColumn) {
+			other2 = getPieceOnRow(piece, oldRow);
+			if (other2 == null || !canMoveTo(other2, square)) {
+				other2 = null;
+			}
+		}
+		return new Chesspiece[] { other, other2 };
+	}
+
+	public long getTime(int color) {
+		return mClock.getTime(color);
+	}
+
+	public void setTime(int color, long time) {
+		mClock.setTime(color, time);
+	}
+
+	/**
+	 * Makes the clock of the color to move run, if the clock has been started.
+	 * No bonus time is given.
+	 */
+	public void revalidateClock() {
+		mClock.setRunningColor(mSideToMove);
+	}
+
+	/**
+	 * Pauses the execution of the clock until this method is called again with
+	 * false
+	 * 
+	 * @param pause
+	 *            True to pause the clock, false to unpause the clock
+	 */
+	public void pauseClock(boolean pause) {
+		mClock.pause(pause);
+	}
+
+	/**
+	 * Returns a Chesspiece of a certain type based on the flag provided.</br>
+	 * The piece is initialized with the parameters color, row and column.
+	 * 
+	 * @param flag
+	 *            The flag which decides what piece to return
+	 * @param color
+	 *            The color of the new piece
+	 * @param row
+	 *            The row position of the new piece
+	 * @param column
+	 *            The column position of the new piece
+	 * @return A chesspiece matching the parameters
+	 */
+	private Chesspiece getPieceByFlag(int flag, int color, int row, int column) {
+		switch (flag) {
+		case QUEEN:
+			return new Queen(color, row, column);
+		case ROOK:
+			return new Rook(color, row, column);
+		case BISHOP:
+			return new Bishop(color, row, column);
+		case KNIGHT:
+			return new Knight(color, row, column);
+		}
+		return null;
+	}
+
+	/**
+	 * Finds the king of the provided color
+	 * 
+	 * @param color
+	 *            The color whose king you want
+	 * @return The king whose getColor() matches color
+	 */
+	protected King getKing(int color) {
+		return (King) mSquares[mBitboard.getKingSquare(color)];
+	}
+
+	/**
+	 * Checks for various game over scenarios and ends the game if it should
+	 * end.
+	 * 
+	 * @param color
+	 *            The color who just moved
+	 */
+	private int checkForGameEnd(int color) {
+		int status = GAMENOTOVER;
+		int enemy;
+		if (color == Chesspiece.WHITE) {
+			enemy = Chesspiece.BLACK;
+		} else {
+			enemy = Chesspiece.WHITE;
+		}
+
+		boolean inCheck = isInCheck(enemy);
+		getKing(enemy).setInCheck(inCheck);
+		mListener.onCheckChanged(enemy, inCheck);
+
+		if (!hasLegalMoves(enemy)) {
+			mClock.stop();
+			mGameOver = true;
+			if (inCheck) {
+				status = CHECKMATE;
+				mListener.onCheckmate(color, mPositionHashFactory.getMoves());
+			} else {
+				status = OTHERGAMEOVER;
+				mListener.onStalemate(color, mPositionHashFactory.getMoves());
+			}
+
+		}
+		if (mPositionHashFactory.drawByRepetition()) {
+			mClock.stop();
+			mGameOver = true;
+			status = OTHERGAMEOVER;
+			mListener.onDrawByRepetition(color, mPositionHashFactory.getMoves());
+		}
+
+		return status;
+	}
+
+	/**
+	 * Checks if the player controlling this color is in check
+	 * 
+	 * @param color
+	 *            The color of pieces to check
+	 * @return True if the player is in check
+	 */
+	private boolean isInCheck(int color) {
+		return mBitboard.isAttacked(mBitboard.getKingSquare(color),
+				enemyOf(color));
+	}
+
+	/**
+	 * Checks if the player controlling this color has at least 1 legal move
+	 * 
+	 * @param color
+	 *            The color of pieces to check
+	 * @return True if the player has at least 1 legal move
+	 */
+	private boolean hasLegalMoves(int color) {
+		long pieces = mBitboard.getColor(color);
+		for (; pieces != 0; pieces &= pieces - 1) {
+			if (mMoveGenerator.legalTargets(mSquares[Long
+					.numberOfTrailingZeros(pieces)]) != 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Gets the number of rows on this chessboard
+	 * 
+	 * @return The number of rows on this chessboard
+	 */
+	public int getMaxRows() {
+		return ROWS;
+	}
+
+	/**
+	 * Gets the number of columns on this chessboard
+	 * 
+	 * @return The number of columns on this chessboard
+	 */
+	public int getMaxColumns() {
+		return COLUMNS;
+	}
+}
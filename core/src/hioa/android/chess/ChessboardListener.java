@@ -0,0 +1,140 @@
+package hioa.android.chess;
+
+/**
+ * Receives the events of a game played on a {@link Chessboard}
+ * <p>
+ * The chessboard itself only knows the rules of the game. Everything else
+ * (updating the screen, playing sounds, storing games in the database) is left
+ * to the listener.
+ * <p>
+ * Note: onClockUpdated() is called from the clock thread. Every other method
+ * is called on the thread of the game's executor, which also makes the
+ * moves.
+ * 
+ * @author Lars Staberget
+ * @version 2013-11-24
+ */
+
+public interface ChessboardListener {
+
+	/**
+	 * Called before a move is made by a player
+	 */
+	public void onMoveStarted();
+
+	/**
+	 * Called after a piece has been moved on the board
+	 * 
+	 * @param oldRow
+	 *            The row the piece was on
+	 * @param oldColumn
+	 *            The column the piece was on
+	 * @param row
+	 *            The row the piece is now on
+	 * @param column
+	 *            The column the piece is now on
+	 */
+	public void onMoveMade(int oldRow, int oldColumn, int row, int column);
+
+	/**
+	 * Called when a piece has been captured
+	 * 
+	 * @param piece
+	 *            The piece that was captured
+	 */
+	public void onPieceCaptured(Chesspiece piece);
+
+	/**
+	 * Called when a king is put in check or gets out of check
+	 * 
+	 * @param color
+	 *            The color of the king
+	 * @param inCheck
+	 *            True if the king is now in check
+	 */
+	public void onCheckChanged(int color, boolean inCheck);
+
+	/**
+	 * Called when it's the other player's turn
+	 */
+	public void onPlayerSwitched();
+
+	/**
+	 * Called when a draw can be claimed by the 50-move rule, and again when it
+	 * no longer can
+	 * 
+	 * @param claimable
+	 *            True if a draw can be claimed
+	 */
+	public void onDrawClaimableChanged(boolean claimable);
+
+	/**
+	 * Called after every move that didn't end the game
+	 * <p>
+	 * Only the move just made is passed, so that saving the game can cost the
+	 * same for every move. {@link PositionHashFactory#getIntMoves()} has all
+	 * the moves made so far.
+	 * 
+	 * @param ply
+	 *            The number of moves made so far, including this one
+	 * @param move
+	 *            The move just made, as stored by
+	 *            {@link PositionHashFactory#getIntMoves()}
+	 * @param whiteTime
+	 *            The time white has left in millis
+	 * @param blackTime
+	 *            The time black has left in millis
+	 */
+	public void onGameStateChanged(int ply, String move, long whiteTime,
+			long blackTime);
+
+	/**
+	 * Called by the clock when the time of the running color has changed
+	 * 
+	 * @param color
+	 *            The color who's clock changed
+	 * @param time
+	 *            The new time in millis
+	 */
+	public void onClockUpdated(int color, long time);
+
+	/**
+	 * Called when the game ends in checkmate
+	 * 
+	 * @param winner
+	 *            The color that won
+	 * @param moves
+	 *            The chess annotations of the game
+	 */
+	public void onCheckmate(int winner, String moves);
+
+	/**
+	 * Called when the game ends in stalemate
+	 * 
+	 * @param color
+	 *            The color that made the last move
+	 * @param moves
+	 *            The chess annotations of the game
+	 */
+	public void onStalemate(int color, String moves);
+
+	/**
+	 * Called when the game ends in a draw by repetition
+	 * 
+	 * @param color
+	 *            The color that made the last move
+	 * @param moves
+	 *            The chess annotations of the game
+	 */
+	public void onDrawByRepetition(int color, String moves);
+
+	/**
+	 * Called when a player has run out of time
+	 * 
+	 * @param winner
+	 *            The color that won
+	 * @param moves
+	 *            The chess annotations of the game
+	 */
+	public void onTimeOut(int winner, String moves);
+}
@@ -1,8 +1,5 @@
 package hioa.android.chess;
 
-import hioa.android.chess.R;
-import android.content.Context;
-
 /**
  * Superclass for the various Chesspieces
  * <p>
@@ -25,8 +22,16 @@ public abstract class Chesspiece {
 	 */
 	private int mCurrentRow, mCurrentColumn;
 	private int mColor;
-	public static Context context;
-	public static Chessboard chessboard;
+	/**
+	 * Used by pawns, rooks and kings to determine whether they can still
+	 * double-step or castle
+	 */
+	private boolean mHasMoved = false;
+	/**
+	 * The board this piece has been placed on, or null if it has never been
+	 * placed on a board
+	 */
+	private Chessboard mChessboard;
 
 	/**
 	 * Moves the piece to the provided row and column
@@ -37,15 +42,33 @@ public abstract class Chesspiece {
 	 *            The column to move to
 	 * @return False if the move is illegal
 	 */
-	public abstract boolean move(int row, int column);
+	public boolean move(int row, int column) {
+		long target = Bitboard.bit(Bitboard.square(row, column));
+		if ((mChessboard.getLegalTargets(this) & target) != 0) {
+			mChessboard.move(this, row, column, getRow(), getColumn());
+			return true;
+		} else
+			return false;
+	}
 
 	/**
 	 * Provides an array of all legal moves for this piece
+	 * <p>
+	 * This allocates a new array on every call and is only meant for the view.
+	 * Use {@link Chessboard#getLegalMoves(MoveList)} everywhere else.
 	 * 
 	 * @return A 2d boolean array representing the chessboard where all legal
 	 *         moves are true and all illegal moves are false
 	 */
-	public abstract boolean[][] legalMoves();
+	public boolean[][] legalMoves() {
+		boolean[][] board = new boolean[Chessboard.ROWS][Chessboard.COLUMNS];
+		long targets = mChessboard.getLegalTargets(this);
+		for (; targets != 0; targets &= targets - 1) {
+			int square = Long.numberOfTrailingZeros(targets);
+			board[Bitboard.row(square)][Bitboard.column(square)] = true;
+		}
+		return board;
+	}
 
 	/**
 	 * Used to determine whether or not this piece is currently checking the
@@ -69,6 +92,14 @@ public abstract class Chesspiece {
 	 */
 	public abstract boolean sameClass(Chesspiece piece);
 
+	/**
+	 * Gets the type of this piece as used by {@link Bitboard}
+	 * 
+	 * @return PAWN, KNIGHT, BISHOP, ROOK, QUEEN or KING as defined in
+	 *         {@link Bitboard}
+	 */
+	public abstract int getType();
+
 	public int getColor() {
 		return mColor;
 	}
@@ -77,6 +108,55 @@ public abstract class Chesspiece {
 		mColor = color;
 	}
 
+	/**
+	 * Gets the board this piece is placed on
+	 * 
+	 * @return The {@link Chessboard} this piece was last placed on
+	 */
+	protected Chessboard getChessboard() {
+		return mChessboard;
+	}
+
+	/**
+	 * Sets the board this piece is placed on. Called by {@link Chessboard}
+	 * every time the piece is placed.
+	 * 
+	 * @param chessboard
+	 *            The board the piece is placed on
+	 */
+	protected void setChessboard(Chessboard chessboard) {
+		mChessboard = chessboard;
+	}
+
+	/**
+	 * Checks whether or not this piece has moved during this game
+	 * 
+	 * @return True if the piece has moved
+	 */
+	public boolean hasMoved() {
+		return mHasMoved;
+	}
+
+	/**
+	 * Sets whether or not this piece has moved. Only used by
+	 * {@link Chessboard} when making and unmaking moves.
+	 * 
+	 * @param hasMoved
+	 *            True if the piece has moved
+	 */
+	protected void setHasMoved(boolean hasMoved) {
+		mHasMoved = hasMoved;
+	}
+
+	/**
+	 * Get the square index that this piece is currently positioned at
+	 * 
+	 * @return The square index as defined in {@link Bitboard}
+	 */
+	protected int getSquare() {
+		return Bitboard.square(mCurrentRow, mCurrentColumn);
+	}
+
 	/**
 	 * Get the row that this piece is currently positioned at
 	 * 
@@ -103,8 +183,7 @@ public abstract class Chesspiece {
 	 * @return False if the index is illegal
 	 */
 	protected boolean setRow(int row) {
-		int maxIndex = context.getResources().getInteger(R.integer.chesspiece_max_row_index);
-		if (row >= 0 && row <= maxIndex) {
+		if (row >= 0 && row < Chessboard.ROWS) {
 			mCurrentRow = row;
 			return true;
 		} else
@@ -119,8 +198,7 @@ public abstract class Chesspiece {
 	 * @return False if the index is illegal
 	 */
 	protected boolean setColumn(int column) {
-		int maxIndex = context.getResources().getInteger(R.integer.chesspiece_max_column_index);
-		if (column >= 0 && column <= maxIndex) {
+		if (column >= 0 && column < Chessboard.COLUMNS) {
 			mCurrentColumn = column;
 			return true;
 		} else
@@ -39,6 +39,12 @@ public class EnPassant extends Chesspiece {
 		return (piece instanceof EnPassant);
 	}
 
+	@Override
+	public int getType() {
+		// This piece is not stored in the bitboards
+		return NO_PIECE;
+	}
+
 	/**
 	 * Returns the {@link Pawn} that created this EnPassant opportunity
 	 * 
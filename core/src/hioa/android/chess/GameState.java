@@ -0,0 +1,102 @@
+package hioa.android.chess;
+
+/**
+ * An unchangeable view of what is known about a game after a move
+ * <p>
+ * A new state is published by the {@link Chessboard} every time the game
+ * changes, and can be read from any thread through
+ * {@link Chessboard#getState()} while the game goes on.
+ * <p>
+ * The annotations aren't copied. Every state shares the annotation array of
+ * the game and only knows how many of them it holds. Annotations are only
+ * ever added after the last one published, and the array is replaced rather
+ * than changed when it grows, so the part a state holds never changes.
+ * 
+ * @author Lars Staberget
+ * @version 2013-11-24
+ */
+
+public class GameState {
+
+	private final int mPlies;
+	private final int mSideToMove;
+	private final int mLastMove;
+	private final boolean mOver;
+	private final String[] mAnnotations;
+	private final int mAnnotationCount;
+
+	GameState(int plies, int sideToMove, int lastMove, boolean over,
+			String[] annotations, int annotationCount) {
+		mPlies = plies;
+		mSideToMove = sideToMove;
+		mLastMove = lastMove;
+		mOver = over;
+		mAnnotations = annotations;
+		mAnnotationCount = annotationCount;
+	}
+
+	/**
+	 * @return The number of moves made by both players
+	 */
+	public int getPlies() {
+		return mPlies;
+	}
+
+	/**
+	 * @return WHITE or BLACK as defined in {@link Chesspiece}
+	 */
+	public int getSideToMove() {
+		return mSideToMove;
+	}
+
+	/**
+	 * @return The last move encoded by {@link Move}, or Move.NO_MOVE
+	 */
+	public int getLastMove() {
+		return mLastMove;
+	}
+
+	/**
+	 * @return true if the game has ended
+	 */
+	public boolean isOver() {
+		return mOver;
+	}
+
+	/**
+	 * @return The number of chess annotations, the result included
+	 */
+	public int getAnnotationCount() {
+		return mAnnotationCount;
+	}
+
+	/**
+	 * @param index
+	 *            From 0 to getAnnotationCount() - 1
+	 * @return The chess annotation at the index
+	 */
+	public String getAnnotation(int index) {
+		if (index >= mAnnotationCount) {
+			throw new IndexOutOfBoundsException("Annotation " + index
+					+ " of " + mAnnotationCount);
+		}
+		return mAnnotations[index];
+	}
+
+	/**
+	 * Gets the chess annotations of the game, in the same form as
+	 * {@link PositionHashFactory#getMoves()}
+	 * 
+	 * @return The annotations separated by spaces
+	 */
+	public String getMoves() {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < mAnnotationCount; i++) {
+			if (i > 0) {
+				builder.append(' ');
+			}
+			builder.append(mAnnotations[i]);
+		}
+		return builder.toString();
+	}
+}
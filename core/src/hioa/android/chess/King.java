@@ -0,0 +1,57 @@
+package hioa.android.chess;
+
+public class King extends Chesspiece {
+
+	private boolean mInCheck = false;
+
+	public King(int color, int row, int column) {
+		setColor(color);
+		setRow(row);
+		setColumn(column);
+	}
+
+	public boolean isInCheck() {
+		return mInCheck;
+	}
+
+	public void setInCheck(boolean inCheck) {
+		mInCheck = inCheck;
+	}
+
+	@Override
+	public boolean sameClass(Chesspiece piece) {
+		return (piece instanceof King);
+	}
+
+	@Override
+	public int getType() {
+		return Bitboard.KING;
+	}
+
+	/**
+	 * Used to determine whether or not this king can still castle
+	 * 
+	 * @return True if the king has not moved during this game
+	 */
+	public boolean canCastle() {
+		return !hasMoved();
+	}
+
+	@Override
+	public boolean threatensPosition(int row, int column) {
+		/*
+		 * We only need to make sure that the king is within reach of the
+		 * position. If the tile contains a piece it doesn't matter, because if
+		 * it's the same color then the king is guarding it. And if it's the
+		 * opposite color then no piece can move there anyway.
+		 */
+		if (row == getRow()) {
+			return (Math.abs(column - getColumn()) == 1);
+		} else if (column == getColumn()) {
+			return (Math.abs(row - getRow()) == 1);
+		} else {
+			return (Math.abs(row - getRow()) == 1 && Math.abs(column - getColumn()) == 1);
+		}
+	}
+
+}
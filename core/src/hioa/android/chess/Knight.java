@@ -0,0 +1,41 @@
+package hioa.android.chess;
+
+/**
+ * Represents a knight
+ * 
+ * @author Lars Staberget
+ * @version 2013-11-10
+ */
+
+public class Knight extends Chesspiece {
+
+	public Knight(int color, int row, int column) {
+		setColor(color);
+		setRow(row);
+		setColumn(column);
+	}
+
+	@Override
+	public boolean sameClass(Chesspiece piece) {
+		return (piece instanceof Knight);
+	}
+
+	@Override
+	public int getType() {
+		return Bitboard.KNIGHT;
+	}
+
+	@Override
+	public boolean threatensPosition(int row, int column) {
+		if (getRow() == row - 2 || getRow() == row + 2) {
+			if (getColumn() == column - 1 || getColumn() == column + 1)
+				return true;
+		}
+		if (getRow() == row - 1 || getRow() == row + 1) {
+			if (getColumn() == column - 2 || getColumn() == column + 2)
+				return true;
+		}
+		return false;
+	}
+
+}
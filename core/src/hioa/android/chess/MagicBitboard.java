@@ -0,0 +1,181 @@
+package hioa.android.chess;
+
+/**
+ * Precomputed attack tables for the sliding pieces ({@link Rook},
+ * {@link Bishop} and {@link Queen})
+ * <p>
+ * The squares that can block a slider standing on a square are called its
+ * relevant occupancy. Multiplying the relevant occupancy by a magic number and
+ * keeping the top bits gives a unique index into a table of attack sets, so
+ * "which squares does this slider attack on this board" is answered by one
+ * multiplication and one table lookup instead of walking every ray.
+ * <p>
+ * The magic numbers were found by a random search for the square layout used
+ * by {@link Bitboard}. The tables themselves are built once when this class is
+ * loaded.
+ * 
+ * @author Lars Staberget
+ * @version 2013-11-24
+ */
+
+public class MagicBitboard {
+
+	private static final long[] ROOK_MAGICS = {
+			0x6080028040041220L, 0x0040004020001008L, 0x2100200040100900L, 0x0080100008008004L,
+			0x0480040080123800L, 0x4100080201000400L, 0x0C0010008408270AL, 0x0100002C8100084AL,
+			0x0401800040008020L, 0x0041400020100242L, 0x0030802000801000L, 0x000300203001002CL,
+			0x0A30808004000800L, 0x0102000410020008L, 0x008C00C402100108L, 0x8010800041000080L,
+			0x2020208000400890L, 0xD0A1090024400880L, 0x0010008080102000L, 0x0000808010000800L,
+			0x1004008080040800L, 0x0010880104201040L, 0x00022400A1080250L, 0x20230A00004414A1L,
+			0x00800140C0002000L, 0x0000810100400020L, 0x822440A600120180L, 0x5208000880100082L,
+			0x6002110100050800L, 0x0202008080020400L, 0x0002000200080401L, 0x0400040200004081L,
+			0x0280400081800030L, 0x0210004000402006L, 0x1000801004802000L, 0x8080201001000900L,
+			0x1091801801800400L, 0x1804020080800400L, 0x0001100804020200L, 0xEA00410042000084L,
+			0x4010804010208000L, 0x401000402000400AL, 0x0000100020008080L, 0x1288000810008080L,
+			0x0010080004008080L, 0x2002000810020004L, 0x0000020148040010L, 0x000000B900420004L,
+			0x0080002006400440L, 0x000C411022048200L, 0x0424100020048080L, 0x2000100008008080L,
+			0x2000080080040080L, 0x8000040080020080L, 0x0400900102088400L, 0x8010008400410200L,
+			0x4080204304800015L, 0x1000110020804001L, 0x4008400880102202L, 0x0A00050008201001L,
+			0x4802000820100402L, 0x0001000400080201L, 0x0004021008010084L, 0x4200010C00264182L };
+
+	private static final long[] BISHOP_MAGICS = {
+			0x2402080801040022L, 0x0004080801182000L, 0x6008080060801007L, 0xC008086B02028021L,
+			0x8902021018000008L, 0x1022080208280000L, 0x0092080202101010L, 0x820A005444101800L,
+			0x841504090A041410L, 0x0208040802040030L, 0x8000100450802080L, 0x0800044408820042L,
+			0xD4200404208008C0L, 0x8004008220622402L, 0x4028620082201228L, 0x048A402088041008L,
+			0x0040071002020412L, 0x0060101002008904L, 0x15080C611800A080L, 0x1108031044114000L,
+			0x0084000200A20000L, 0x8801000200420200L, 0x11040850410C3090L, 0x8000408514008410L,
+			0x0002100020051014L, 0x0084020020820444L, 0x0088020914040111L, 0x1201080009004100L,
+			0x3011010080104008L, 0x8080860005010094L, 0x542204140A008204L, 0x1801020800404400L,
+			0x0052212020044820L, 0x0401016006100440L, 0x0021080204204480L, 0x00A6010042040040L,
+			0x3181010400020020L, 0xA422080308421001L, 0x400400B080840408L, 0x0024404080220080L,
+			0x04480402C9182002L, 0x0004024210100200L, 0x0502001044010800L, 0x200800C208000080L,
+			0x80408A10A4000200L, 0x0044008091008200L, 0x0049100C0044A080L, 0x000408828205110DL,
+			0x0010889420208081L, 0x0212007402180608L, 0x8808202108220000L, 0x8C00800041108010L,
+			0x60080C9020222006L, 0x0000082008308E00L, 0x0106A06801010001L, 0x101428A0840C8084L,
+			0x0102010108010490L, 0x0003002104100400L, 0x00000E4304210400L, 0x8382100200840401L,
+			0x0200020010220888L, 0x000091200812082CL, 0x0008408881810200L, 0x0110820800409200L };
+
+	private static final int[][] ROOK_STEPS = { { 0, 1 }, { 1, 0 }, { 0, -1 },
+			{ -1, 0 } };
+	private static final int[][] BISHOP_STEPS = { { 1, 1 }, { 1, -1 },
+			{ -1, 1 }, { -1, -1 } };
+
+	private static final long[] ROOK_MASKS = new long[64];
+	private static final long[] BISHOP_MASKS = new long[64];
+	private static final int[] ROOK_SHIFTS = new int[64];
+	private static final int[] BISHOP_SHIFTS = new int[64];
+	/**
+	 * Where each square's part of the attack table starts
+	 */
+	private static final int[] ROOK_OFFSETS = new int[64];
+	private static final int[] BISHOP_OFFSETS = new int[64];
+	private static final long[] ROOK_ATTACKS;
+	private static final long[] BISHOP_ATTACKS;
+
+	static {
+		ROOK_ATTACKS = new long[initialize(ROOK_MASKS, ROOK_SHIFTS,
+				ROOK_OFFSETS, ROOK_STEPS)];
+		BISHOP_ATTACKS = new long[initialize(BISHOP_MASKS, BISHOP_SHIFTS,
+				BISHOP_OFFSETS, BISHOP_STEPS)];
+		for (int square = 0; square < 64; square++) {
+			fill(square, true);
+			fill(square, false);
+		}
+	}
+
+	/**
+	 * Gets the squares a rook on the provided square attacks
+	 * 
+	 * @param square
+	 *            The square the rook is standing on
+	 * @param occupied
+	 *            Every occupied square on the board
+	 * @return A bitboard of every attacked square, including the first
+	 *         blocking piece in each direction
+	 */
+	public static long rookAttacks(int square, long occupied) {
+		return ROOK_ATTACKS[ROOK_OFFSETS[square]
+				+ (int) (((occupied & ROOK_MASKS[square]) * ROOK_MAGICS[square]) >>> ROOK_SHIFTS[square])];
+	}
+
+	/**
+	 * Gets the squares a bishop on the provided square attacks
+	 * 
+	 * @param square
+	 *            The square the bishop is standing on
+	 * @param occupied
+	 *            Every occupied square on the board
+	 * @return A bitboard of every attacked square, including the first
+	 *         blocking piece in each direction
+	 */
+	public static long bishopAttacks(int square, long occupied) {
+		return BISHOP_ATTACKS[BISHOP_OFFSETS[square]
+				+ (int) (((occupied & BISHOP_MASKS[square]) * BISHOP_MAGICS[square]) >>> BISHOP_SHIFTS[square])];
+	}
+
+	/**
+	 * Gets the squares a queen on the provided square attacks
+	 * 
+	 * @param square
+	 *            The square the queen is standing on
+	 * @param occupied
+	 *            Every occupied square on the board
+	 * @return A bitboard of every attacked square, including the first
+	 *         blocking piece in each direction
+	 */
+	public static long queenAttacks(int square, long occupied) {
+		return rookAttacks(square, occupied) | bishopAttacks(square, occupied);
+	}
+
+	/**
+	 * Calculates the masks, shifts and offsets for one kind of slider
+	 * 
+	 * @return The total size of the attack table
+	 */
+	private static int initialize(long[] masks, int[] shifts, int[] offsets,
+			int[][] steps) {
+		int size = 0;
+		for (int square = 0; square < 64; square++) {
+			int row = Bitboard.row(square);
+			int column = Bitboard.column(square);
+			for (int[] step : steps) {
+				int r = row + step[0];
+				int c = column + step[1];
+				// The last square in a direction can never block anything
+				while (Bitboard.onBoard(r + step[0], c + step[1])) {
+					masks[square] |= Bitboard.bit(Bitboard.square(r, c));
+					r += step[0];
+					c += step[1];
+				}
+			}
+			int bits = Long.bitCount(masks[square]);
+			shifts[square] = 64 - bits;
+			offsets[square] = size;
+			size += 1 << bits;
+		}
+		return size;
+	}
+
+	/**
+	 * Fills in the attack table for every possible relevant occupancy of the
+	 * provided square
+	 */
+	private static void fill(int square, boolean rook) {
+		long mask = rook ? ROOK_MASKS[square] : BISHOP_MASKS[square];
+		long subset = 0;
+		// Enumerate every subset of the mask
+		do {
+			if (rook) {
+				ROOK_ATTACKS[ROOK_OFFSETS[square]
+						+ (int) ((subset * ROOK_MAGICS[square]) >>> ROOK_SHIFTS[square])] = Bitboard
+						.rookRayAttacks(square, subset);
+			} else {
+				BISHOP_ATTACKS[BISHOP_OFFSETS[square]
+						+ (int) ((subset * BISHOP_MAGICS[square]) >>> BISHOP_SHIFTS[square])] = Bitboard
+						.bishopRayAttacks(square, subset);
+			}
+			subset = (subset - mask) & mask;
+		} while (subset != 0);
+	}
+}
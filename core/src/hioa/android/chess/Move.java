@@ -0,0 +1,90 @@
+package hioa.android.chess;
+
+/**
+ * Packs a move into a single int so that moves can be stored and passed
+ * around without allocating objects
+ * <p>
+ * Only the lowest 16 bits are used:
+ * <ul>
+ * <li>Bits 0-5: The square the piece moves from</li>
+ * <li>Bits 6-11: The square the piece moves to</li>
+ * <li>Bits 12-14: The promotion flag as defined in {@link Chessboard}</li>
+ * </ul>
+ * Squares are indexed as defined in {@link Bitboard}. Castling is encoded as
+ * the king moving two columns, the rook is moved along with it.
+ * 
+ * @author Lars Staberget
+ * @version 2013-11-24
+ */
+
+public class Move {
+
+	public static final int NO_MOVE = 0;
+
+	private static final int SQUARE_MASK = 0x3F, PROMOTION_MASK = 0x7;
+	private static final int TO_SHIFT = 6, PROMOTION_SHIFT = 12;
+
+	private Move() {
+	}
+
+	/**
+	 * Encodes a move
+	 * 
+	 * @param from
+	 *            The square to move from
+	 * @param to
+	 *            The square to move to
+	 * @param promotion
+	 *            NO_PROMOTION, QUEEN, ROOK, BISHOP or KNIGHT as defined in
+	 *            {@link Chessboard}
+	 * @return The encoded move
+	 */
+	public static int create(int from, int to, int promotion) {
+		return from | (to << TO_SHIFT) | (promotion << PROMOTION_SHIFT);
+	}
+
+	public static int getFrom(int move) {
+		return move & SQUARE_MASK;
+	}
+
+	public static int getTo(int move) {
+		return (move >>> TO_SHIFT) & SQUARE_MASK;
+	}
+
+	public static int getPromotion(int move) {
+		return (move >>> PROMOTION_SHIFT) & PROMOTION_MASK;
+	}
+
+	/**
+	 * Writes the move in coordinate notation, for example e2e4 or e7e8q
+	 * 
+	 * @param move
+	 *            The encoded move
+	 * @return The move as a string
+	 */
+	public static String toString(int move) {
+		StringBuilder builder = new StringBuilder(5);
+		appendSquare(builder, getFrom(move));
+		appendSquare(builder, getTo(move));
+		switch (getPromotion(move)) {
+		case Chessboard.QUEEN:
+			builder.append('q');
+			break;
+		case Chessboard.ROOK:
+			builder.append('r');
+			break;
+		case Chessboard.BISHOP:
+			builder.append('b');
+			break;
+		case Chessboard.KNIGHT:
+			builder.append('n');
+			break;
+		}
+		return builder.toString();
+	}
+
+	private static void appendSquare(StringBuilder builder, int square) {
+		builder.append((char) ('a' + Bitboard.column(square)));
+		builder.append(Chessboard.ROWS - Bitboard.row(square));
+	}
+}
@@ -0,0 +1,289 @@
+package hioa.android.chess;
+
+/**
+ * Generates the legal moves for the pieces on a {@link Chessboard}
+ * <p>
+ * Instead of trying every candidate move and checking if the king ends up in
+ * check, the position is analyzed once for the side to move:
+ * <ul>
+ * <li>The checkers are the enemy pieces currently attacking the king</li>
+ * <li>The check mask is the set of squares a piece other than the king can
+ * move to in order to resolve a check (capture the checker or block it)</li>
+ * <li>The pinned pieces are the pieces that would expose the king to an enemy
+ * slider if they left the line between the two</li>
+ * </ul>
+ * The legal moves of a piece are then its pseudo-legal moves restricted by
+ * the check mask and, if it is pinned, by its pin line.
+ * <p>
+ * The analysis is cached until the board changes.
+ * 
+ * @author Lars Staberget
+ * @version 2013-11-24
+ */
+
+public class MoveGenerator {
+
+	private Chessboard mChessboard;
+	private Bitboard mBitboard;
+
+	/**
+	 * The color the cached analysis was made for, or NO_PIECE if there is no
+	 * valid analysis
+	 */
+	private int mColor = Chesspiece.NO_PIECE;
+	private int mKingSquare;
+	private long mCheckers, mCheckMask, mPinned;
+	/**
+	 * The line a pinned piece is allowed to move along, indexed by the
+	 * square of the pinned piece. Only valid for squares in mPinned
+	 */
+	private long[] mPinLines = new long[64];
+
+	public MoveGenerator(Chessboard chessboard, Bitboard bitboard) {
+		mChessboard = chessboard;
+		mBitboard = bitboard;
+	}
+
+	/**
+	 * Discards the cached analysis. Must be called every time the board
+	 * changes
+	 */
+	public void invalidate() {
+		mColor = Chesspiece.NO_PIECE;
+	}
+
+	/**
+	 * Gets the enemy pieces that are currently checking the king of the
+	 * provided color
+	 * 
+	 * @param color
+	 *            WHITE or BLACK as defined in {@link Chesspiece}
+	 * @return A bitboard of the checking pieces
+	 */
+	public long getCheckers(int color) {
+		analyze(color);
+		return mCheckers;
+	}
+
+	/**
+	 * Gets every square the provided piece can legally move to
+	 * 
+	 * @param piece
+	 *            The piece to move
+	 * @return A bitboard of all legal target squares
+	 */
+	public long legalTargets(Chesspiece piece) {
+		int color = piece.getColor();
+		analyze(color);
+		int square = piece.getSquare();
+		if (piece instanceof King) {
+			return kingTargets(piece, square, color);
+		}
+		// Only the king can move out of a double check
+		if (mCheckMask == 0) {
+			return 0;
+		}
+		long own = mBitboard.getColor(color);
+		long occupied = mBitboard.getOccupied();
+		long targets;
+		switch (piece.getType()) {
+		case Bitboard.PAWN:
+			return pawnTargets((Pawn) piece, square, color);
+		case Bitboard.KNIGHT:
+			targets = Bitboard.KNIGHT_ATTACKS[square];
+			break;
+		case Bitboard.BISHOP:
+			targets = MagicBitboard.bishopAttacks(square, occupied);
+			break;
+		case Bitboard.ROOK:
+			targets = MagicBitboard.rookAttacks(square, occupied);
+			break;
+		case Bitboard.QUEEN:
+			targets = MagicBitboard.queenAttacks(square, occupied);
+			break;
+		default:
+			return 0;
+		}
+		return restrict(square, targets & ~own);
+	}
+
+	/**
+	 * Writes every legal move of the provided color into the list. A pawn
+	 * reaching the last row gives one move for each piece it can promote to.
+	 * 
+	 * @param color
+	 *            WHITE or BLACK as defined in {@link Chesspiece}
+	 * @param moves
+	 *            The list to fill. It is cleared first
+	 * @return The number of legal moves
+	 */
+	public int generateMoves(int color, MoveList moves) {
+		moves.clear();
+		long pieces = mBitboard.getColor(color);
+		for (; pieces != 0; pieces &= pieces - 1) {
+			int from = Long.numberOfTrailingZeros(pieces);
+			Chesspiece piece = mChessboard.getPieceAt(Bitboard.row(from),
+					Bitboard.column(from));
+			long targets = legalTargets(piece);
+			if (piece instanceof Pawn) {
+				long promotions = targets
+						& (Bitboard.rowMask(0) | Bitboard.rowMask(7));
+				targets &= ~promotions;
+				for (; promotions != 0; promotions &= promotions - 1) {
+					int to = Long.numberOfTrailingZeros(promotions);
+					for (int flag = Chessboard.QUEEN; flag <= Chessboard.KNIGHT;
+							flag++) {
+						moves.add(Move.create(from, to, flag));
+					}
+				}
+			}
+			for (; targets != 0; targets &= targets - 1) {
+				moves.add(Move.create(from, Long.numberOfTrailingZeros(targets),
+						Chessboard.NO_PROMOTION));
+			}
+		}
+		return moves.size();
+	}
+
+	/**
+	 * Restricts the pseudo-legal targets of a piece by the check mask and its
+	 * pin line
+	 */
+	private long restrict(int square, long targets) {
+		targets &= mCheckMask;
+		if ((mPinned & Bitboard.bit(square)) != 0) {
+			targets &= mPinLines[square];
+		}
+		return targets;
+	}
+
+	private long pawnTargets(Pawn pawn, int square, int color) {
+		long empty = ~mBitboard.getOccupied();
+		int forward = color == Chesspiece.WHITE ? -8 : 8;
+		long targets = 0;
+		int single = square + forward;
+		if (single >= 0 && single < 64 && (empty & Bitboard.bit(single)) != 0) {
+			targets |= Bitboard.bit(single);
+			int pawnDouble = single + forward;
+			if (!pawn.hasMoved() && pawnDouble >= 0 && pawnDouble < 64
+					&& (empty & Bitboard.bit(pawnDouble)) != 0) {
+				targets |= Bitboard.bit(pawnDouble);
+			}
+		}
+		long attacks = Bitboard.PAWN_ATTACKS[color][square];
+		targets |= attacks & mBitboard.getColor(1 - color);
+		targets = restrict(square, targets);
+
+		/*
+		 * En passant removes two pieces from the same row, which the pin
+		 * analysis can't describe. These are rare enough to simply be tested
+		 * on a masked board.
+		 */
+		int enPassant = mBitboard.getEnPassantSquare();
+		if (enPassant != Bitboard.NO_SQUARE
+				&& (attacks & Bitboard.bit(enPassant)) != 0
+				&& !mChessboard.kingInCheckAfter(pawn,
+						Bitboard.row(enPassant), Bitboard.column(enPassant))) {
+			targets |= Bitboard.bit(enPassant);
+		}
+		return targets;
+	}
+
+	private long kingTargets(Chesspiece king, int square, int color) {
+		int enemy = 1 - color;
+		// The king can't hide behind itself from a slider
+		long occupied = mBitboard.getOccupied() & ~Bitboard.bit(square);
+		long targets = Bitboard.KING_ATTACKS[square]
+				& ~mBitboard.getColor(color);
+		long legal = 0;
+		for (; targets != 0; targets &= targets - 1) {
+			int target = Long.numberOfTrailingZeros(targets);
+			if (!mBitboard.isAttacked(target, enemy, occupied,
+					~Bitboard.bit(target))) {
+				legal |= Bitboard.bit(target);
+			}
+		}
+		if (mCheckers == 0 && ((King) king).canCastle()) {
+			legal |= castleTargets(square, color);
+		}
+		return legal;
+	}
+
+	/**
+	 * Finds the castles available to an unmoved king which is not in check
+	 */
+	private long castleTargets(int square, int color) {
+		int enemy = 1 - color;
+		long occupied = mBitboard.getOccupied();
+		long targets = 0;
+		// Kingside Castle
+		if ((occupied & (Bitboard.bit(square + 1) | Bitboard.bit(square + 2))) == 0
+				&& !mBitboard.isAttacked(square + 1, enemy)
+				&& !mBitboard.isAttacked(square + 2, enemy)
+				&& canCastleWith(square + 3, color)) {
+			targets |= Bitboard.bit(square + 2);
+		}
+		// Queenside Castle
+		if ((occupied & (Bitboard.bit(square - 1) | Bitboard.bit(square - 2) | Bitboard
+				.bit(square - 3))) == 0
+				&& !mBitboard.isAttacked(square - 1, enemy)
+				&& !mBitboard.isAttacked(square - 2, enemy)
+				&& canCastleWith(square - 4, color)) {
+			targets |= Bitboard.bit(square - 2);
+		}
+		return targets;
+	}
+
+	private boolean canCastleWith(int square, int color) {
+		Chesspiece rook = mChessboard.getPieceAt(Bitboard.row(square),
+				Bitboard.column(square));
+		return rook instanceof Rook && rook.getColor() == color
+				&& ((Rook) rook).canCastle();
+	}
+
+	/**
+	 * Finds the checkers, check mask and pinned pieces for the provided color
+	 * unless they are already cached
+	 */
+	private void analyze(int color) {
+		if (mColor == color) {
+			return;
+		}
+		int enemy = 1 - color;
+		long occupied = mBitboard.getOccupied();
+		long own = mBitboard.getColor(color);
+		mKingSquare = mBitboard.getKingSquare(color);
+		mCheckers = mBitboard.attackersOf(mKingSquare, enemy, occupied);
+
+		if (mCheckers == 0) {
+			mCheckMask = -1L;
+		} else if ((mCheckers & (mCheckers - 1)) == 0) {
+			int checker = Long.numberOfTrailingZeros(mCheckers);
+			mCheckMask = mCheckers | Bitboard.between(mKingSquare, checker);
+		} else {
+			mCheckMask = 0;
+		}
+
+		// Enemy sliders that would attack the king if nothing was in the way
+		long straight = mBitboard.getPieces(enemy, Bitboard.ROOK)
+				| mBitboard.getPieces(enemy, Bitboard.QUEEN);
+		long diagonal = mBitboard.getPieces(enemy, Bitboard.BISHOP)
+				| mBitboard.getPieces(enemy, Bitboard.QUEEN);
+		long snipers = (MagicBitboard.rookAttacks(mKingSquare, 0) & straight)
+				| (MagicBitboard.bishopAttacks(mKingSquare, 0) & diagonal);
+		mPinned = 0;
+		for (; snipers != 0; snipers &= snipers - 1) {
+			int sniper = Long.numberOfTrailingZeros(snipers);
+			long between = Bitboard.between(mKingSquare, sniper);
+			long blockers = between & occupied;
+			// Exactly one blocker, and it's ours
+			if (blockers != 0 && (blockers & (blockers - 1)) == 0
+					&& (blockers & own) != 0) {
+				mPinned |= blockers;
+				mPinLines[Long.numberOfTrailingZeros(blockers)] = between
+						| Bitboard.bit(sniper);
+			}
+		}
+		mColor = color;
+	}
+}
@@ -0,0 +1,56 @@
+package hioa.android.chess;
+
+/**
+ * A reusable buffer of moves encoded by {@link Move}
+ * <p>
+ * The list is owned by the caller and filled by
+ * {@link Chessboard#getLegalMoves(MoveList)}. Clearing and refilling the same
+ * list does not allocate anything, which is why a search should keep one list
+ * per depth rather than creating new ones.
+ * 
+ * @author Lars Staberget
+ * @version 2013-11-24
+ */
+
+public class MoveList {
+
+	/**
+	 * No legal chess position has more than 218 moves
+	 */
+	public static final int MAX_MOVES = 256;
+
+	private final int[] mMoves = new int[MAX_MOVES];
+	private int mSize = 0;
+
+	/**
+	 * Appends a move to the end of the list
+	 * 
+	 * @param move
+	 *            The move as encoded by {@link Move}
+	 */
+	public void add(int move) {
+		mMoves[mSize++] = move;
+	}
+
+	/**
+	 * Gets the move at the provided index
+	 * 
+	 * @param index
+	 *            The index of the move, less than size()
+	 * @return The move as encoded by {@link Move}
+	 */
+	public int get(int index) {
+		return mMoves[index];
+	}
+
+	public int size() {
+		return mSize;
+	}
+
+	/**
+	 * Empties the list without releasing the buffer
+	 */
+	public void clear() {
+		mSize = 0;
+	}
+}
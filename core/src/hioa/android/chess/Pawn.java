@@ -0,0 +1,37 @@
+package hioa.android.chess;
+
+/**
+ * Represents a pawn
+ * 
+ * @author Lars Staberget
+ * @version 2013-11-09
+ */
+
+public class Pawn extends Chesspiece {
+
+	public Pawn(int color, int row, int column) {
+		setColor(color);
+		setRow(row);
+		setColumn(column);
+	}
+
+	@Override
+	public boolean sameClass(Chesspiece piece) {
+		return (piece instanceof Pawn);
+	}
+
+	@Override
+	public int getType() {
+		return Bitboard.PAWN;
+	}
+
+	@Override
+	public boolean threatensPosition(int row, int column) {
+		if ((getRow() == row + 1 && getColor() == WHITE) || (getRow() == row - 1 && getColor() == BLACK)) {
+			if (getColumn() == column - 1 || getColumn() == column + 1)
+				return true;
+		}
+		return false;
+	}
+
+}
@@ -13,7 +13,12 @@ public class PositionHashFactory {
 
 	private Chessboard mChessboard;
 	private static final int ARRAY_INCREMENT = 100;
-	String[] mHashedPositions = new String[ARRAY_INCREMENT];
+	long[] mHashedPositions = new long[ARRAY_INCREMENT];
+	/**
+	 * Shared with the {@link GameState}s of the game. Only the annotations
+	 * after the last published one may be changed, and the array is copied
+	 * when it grows.
+	 */
 	String[] mMoves = new String[ARRAY_INCREMENT];
 	String[] mIntMoves = new String[ARRAY_INCREMENT];
 	private int mCurrentHashIndex = 0, mCurrentMoveIndex = 0,
@@ -22,12 +27,8 @@ public class PositionHashFactory {
 	private static final int ROW = 0, COLUMN = 1, OLDROW = 2, OLDCOLUMN = 3,
 			FLAG = 4;
 
-	private static final String WHITE = "a", BLACK = "b", ENPASSANT = "c",
-			NOPIECE = "d", WPAWN = "e", WROOK = "f", WBISHOP = "g",
-			WKNIGHT = "h", WKING = "i", WQUEEN = "j", BPAWN = "k", BROOK = "l",
-			BBISHOP = "m", BKNIGHT = "n", BKING = "o", BQUEEN = "p";
 	private static final String SPLIT = " ";
-	private boolean mRepetition = false, mIsRebuilding = false;
+	private boolean mRepetition = false;
 
 	/*
 	 * It is extremely important that this does not equal Chesspiece.WHITE or
@@ -37,45 +38,112 @@ public class PositionHashFactory {
 
 	public PositionHashFactory(Chessboard board) {
 		mChessboard = board;
+		// The starting position counts towards a repetition as well
+		hashPosition();
 	}
 
 	/**
 	 * Rebuilds the last position in this string representing an array of moves
 	 * seperated by SPLIT
+	 * <p>
+	 * The moves are replayed directly on the board without notifying the
+	 * listener for every move. The listener is notified once, of the final
+	 * position, when all the moves have been replayed.
 	 * 
 	 * @param moves
 	 *            The string to be converted into an array of chess annotations
 	 * @return The color who's turn it is
 	 */
 	public int rebuildPosition(String moves) {
-		String[] move = moves.split(SPLIT);
-		int row = -1, column = -1, oldRow = -1, oldColumn = -1, flag;
-		mIsRebuilding = true;
+		replayMoves(moves.split(SPLIT), 0);
+		mChessboard.publishPosition();
+		return mChessboard.getSideToMove();
+	}
 
-		for (int i = 0; i < move.length; i++) {
-			if (i + 1 == move.length) {
-				mIsRebuilding = false;
-			}
-			row = Integer.parseInt("" + move[i].charAt(ROW));
-			column = Integer.parseInt("" + move[i].charAt(COLUMN));
-			oldRow = Integer.parseInt("" + move[i].charAt(OLDROW));
-			oldColumn = Integer.parseInt("" + move[i].charAt(OLDCOLUMN));
-			flag = Integer.parseInt("" + move[i].charAt(FLAG));
-			if (flag != Chessboard.NO_PROMOTION) {
-				mChessboard.setPromotionFlag(flag);
+	/**
+	 * Replays moves as stored by getIntMoves() on the board, see
+	 * {@link Chessboard#replayMove(int, int, int, int, int)}
+	 * 
+	 * @param moves
+	 *            The moves to replay
+	 * @param first
+	 *            The index of the first move to replay
+	 * @throws IllegalArgumentException
+	 *             If a move is malformed or illegal
+	 */
+	void replayMoves(String[] moves, int first) {
+		for (int i = first; i < moves.length; i++) {
+			if (!isIntMove(moves[i])) {
+				throw new IllegalArgumentException("Malformed move: "
+						+ moves[i]);
 			}
-			mChessboard.getPieceAt(oldRow, oldColumn).move(row, column);
+			mChessboard.replayMove(Character.digit(moves[i].charAt(ROW), 10),
+					Character.digit(moves[i].charAt(COLUMN), 10),
+					Character.digit(moves[i].charAt(OLDROW), 10),
+					Character.digit(moves[i].charAt(OLDCOLUMN), 10),
+					Character.digit(moves[i].charAt(FLAG), 10));
+		}
+	}
+
+	/**
+	 * Checks that a string is a move as stored by insertIntMove()
+	 */
+	private boolean isIntMove(String move) {
+		if (move.length() != FLAG + 1) {
+			return false;
 		}
-		mChessboard.mView.setLastMoveHint(oldRow, oldColumn, row, column);
-		if (move.length % 2 == 0) {
-			return Chesspiece.WHITE;
-		} else {
-			return Chesspiece.BLACK;
+		for (int i = ROW; i <= OLDCOLUMN; i++) {
+			if (move.charAt(i) < '0' || move.charAt(i) > '7') {
+				return false;
+			}
 		}
+		return move.charAt(FLAG) >= '0'
+				&& move.charAt(FLAG) <= '0' + Chessboard.KNIGHT;
 	}
 
-	public boolean isRebuilding() {
-		return mIsRebuilding;
+	/**
+	 * Continues a game restored from a {@link PositionSnapshot} instead of
+	 * rebuilding it move by move
+	 * 
+	 * @param hashHistory
+	 *            The hashes of every position so far
+	 * @param annotations
+	 *            The chess annotations of every move so far
+	 * @param intMoves
+	 *            The moves as stored by getIntMoves()
+	 */
+	void restore(long[] hashHistory, String[] annotations, String[] intMoves) {
+		mHashedPositions = Arrays.copyOf(hashHistory, hashHistory.length
+				+ ARRAY_INCREMENT);
+		mCurrentHashIndex = hashHistory.length;
+		mMoves = Arrays.copyOf(annotations, annotations.length
+				+ ARRAY_INCREMENT);
+		mCurrentMoveIndex = annotations.length;
+		mIntMoves = Arrays.copyOf(intMoves, intMoves.length + ARRAY_INCREMENT);
+		mCurrentIntMoveIndex = intMoves.length;
+	}
+
+	/**
+	 * Gets the hashes of every position so far, for a
+	 * {@link PositionSnapshot}
+	 */
+	long[] getHashHistory() {
+		return Arrays.copyOf(mHashedPositions, mCurrentHashIndex);
+	}
+
+	/**
+	 * Gets the chess annotations of every move so far, for a
+	 * {@link PositionSnapshot}
+	 */
+	String[] getAnnotations() {
+		return Arrays.copyOf(mMoves, mCurrentMoveIndex);
+	}
+
+	/**
+	 * Gets the number of moves stored by getIntMoves()
+	 */
+	int getIntMovesCount() {
+		return mCurrentIntMoveIndex;
 	}
 
 	public int getCurrentMovesIndex() {
@@ -132,6 +200,18 @@ public class PositionHashFactory {
 		return builder.toString();
 	}
 
+	/**
+	 * Gets the last move stored by getIntMoves()
+	 * 
+	 * @return The move, or null if no move has been made
+	 */
+	public String getLastIntMove() {
+		if (mCurrentIntMoveIndex == 0) {
+			return null;
+		}
+		return mIntMoves[mCurrentIntMoveIndex - 1];
+	}
+
 	/**
 	 * Inserts a move into the array responsible for saving the game state
 	 * 
@@ -377,43 +457,37 @@ public class PositionHashFactory {
 	}
 
 	/**
-	 * Creates a hash of the current boardstate and stores it in the database.
+	 * Stores the hash of the current boardstate.
 	 * <p>
 	 * These hashes are used to draw the game if the exact same boardstate
 	 * appears 3 times in 1 game
 	 */
-	public void hashPosition(int color) {
-		StringBuilder builder;
-		if (color == Chesspiece.WHITE) {
-			builder = new StringBuilder(WHITE);
-		} else {
-			builder = new StringBuilder(BLACK);
-		}
-		for (int i = 0; i < mChessboard.getMaxRows(); i++) {
-			for (int j = 0; j < mChessboard.getMaxColumns(); j++) {
-				builder.append(getHashValue(mChessboard.getPieceAt(i, j)));
-			}
-		}
+	public void hashPosition() {
 		if (mCurrentHashIndex == mHashedPositions.length) {
-			mHashedPositions = expandArray(mHashedPositions);
+			mHashedPositions = Arrays.copyOf(mHashedPositions,
+					mHashedPositions.length + ARRAY_INCREMENT);
 		}
-		mHashedPositions[mCurrentHashIndex++] = builder.toString();
+		mHashedPositions[mCurrentHashIndex++] = mChessboard.getHashKey();
 	}
 
 	/**
-	 * Checks all the hashed positions to see if this game should end in a draw
-	 * by repetition
+	 * Checks the hashed positions to see if this game should end in a draw by
+	 * repetition
+	 * <p>
+	 * A position can't repeat across a capture or a pawn move, and only
+	 * repeats with the same color to move. Only every other position since the
+	 * last capture or pawn move is therefore checked.
 	 * 
 	 * @return True if the last entered position has occured 3 times during this
 	 *         game
 	 */
 	public boolean drawByRepetition() {
-		// Last entered hash
-		String hash = mHashedPositions[mCurrentHashIndex - 1].replaceAll(
-				ENPASSANT, NOPIECE);
+		int last = mCurrentHashIndex - 1;
+		long hash = mHashedPositions[last];
+		int first = Math.max(0, last - mChessboard.getMoveCount());
 		int repetition_count = 1;
-		for (int i = 0; i < mCurrentHashIndex - 1; i++) {
-			if (mHashedPositions[i].replaceAll(ENPASSANT, NOPIECE).equals(hash)) {
+		for (int i = last - 2; i >= first; i -= 2) {
+			if (mHashedPositions[i] == hash) {
 				repetition_count++;
 				if (repetition_count >= 3) {
 					return true;
@@ -423,62 +497,6 @@ public class PositionHashFactory {
 		return false;
 	}
 
-	/**
-	 * Returns the hash value used to represent a piece of this color and class
-	 * 
-	 * @param piece
-	 *            The piece to hash
-	 * @return A hash value representing a piece of this type and color
-	 */
-	private String getHashValue(Chesspiece piece) {
-		if (piece == null) {
-			return NOPIECE;
-		}
-		if (piece instanceof EnPassant) {
-			return ENPASSANT;
-		}
-		if (piece.getColor() == Chesspiece.WHITE) {
-			if (piece instanceof Pawn) {
-				return WPAWN;
-			}
-			if (piece instanceof Rook) {
-				return WROOK;
-			}
-			if (piece instanceof Bishop) {
-				return WBISHOP;
-			}
-			if (piece instanceof Knight) {
-				return WKNIGHT;
-			}
-			if (piece instanceof King) {
-				return WKING;
-			}
-			if (piece instanceof Queen) {
-				return WQUEEN;
-			}
-		} else {
-			if (piece instanceof Pawn) {
-				return BPAWN;
-			}
-			if (piece instanceof Rook) {
-				return BROOK;
-			}
-			if (piece instanceof Bishop) {
-				return BBISHOP;
-			}
-			if (piece instanceof Knight) {
-				return BKNIGHT;
-			}
-			if (piece instanceof King) {
-				return BKING;
-			}
-			if (piece instanceof Queen) {
-				return BQUEEN;
-			}
-		}
-		throw new IllegalStateException("Unknown Chesspiece");
-	}
-
 	/**
 	 * Expands the array by ARRAY_INCREMENT number of spaces
 	 */
@@ -0,0 +1,193 @@
+package hioa.android.chess;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+/**
+ * A compact binary copy of a game in progress, used to continue a saved game
+ * without replaying its moves
+ * <p>
+ * A snapshot holds the pieces on the board, the color to move, the castling
+ * rights, the En-Passant square, the 50-move count, the hashes used to detect
+ * repetitions, both clocks, the last move, the captured pieces and the chess
+ * annotations. It is created by {@link Chessboard#getSnapshot()} and read by
+ * {@link Chessboard#restoreSnapshot(byte[], String)}.
+ * 
+ * @author Lars Staberget
+ * @version 2013-11-24
+ */
+
+public class PositionSnapshot {
+
+	private static final int MAGIC = 0x43485353;
+	/**
+	 * Increased whenever the format changes. Snapshots of other versions are
+	 * rejected, and the game is rebuilt from its moves instead.
+	 */
+	private static final int VERSION = 1;
+	private static final int SQUARES = Chessboard.ROWS * Chessboard.COLUMNS;
+	/**
+	 * Guards against allocating huge arrays while reading a corrupt snapshot
+	 */
+	private static final int MAX_LENGTH = 1 << 16;
+	private static final String PIECES = "pnbrqk";
+
+	final int mPlies;
+	final byte[] mPieces;
+	final int mSideToMove;
+	final int mCastlingRights;
+	final int mEnPassantSquare;
+	final int mMoveCount;
+	final long mHashKey;
+	final long[] mHashHistory;
+	final long mWhiteTime, mBlackTime;
+	final int mLastMove;
+	final byte[] mCaptured;
+	final String[] mAnnotations;
+
+	PositionSnapshot(int plies, byte[] pieces, int sideToMove,
+			int castlingRights, int enPassantSquare, int moveCount,
+			long hashKey, long[] hashHistory, long whiteTime, long blackTime,
+			int lastMove, byte[] captured, String[] annotations) {
+		mPlies = plies;
+		mPieces = pieces;
+		mSideToMove = sideToMove;
+		mCastlingRights = castlingRights;
+		mEnPassantSquare = enPassantSquare;
+		mMoveCount = moveCount;
+		mHashKey = hashKey;
+		mHashHistory = hashHistory;
+		mWhiteTime = whiteTime;
+		mBlackTime = blackTime;
+		mLastMove = lastMove;
+		mCaptured = captured;
+		mAnnotations = annotations;
+	}
+
+	/**
+	 * Writes the snapshot to a byte array that can be stored in the database
+	 * 
+	 * @return The snapshot in binary form
+	 */
+	public byte[] toByteArray() {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(256
+				+ mHashHistory.length * 8 + mAnnotations.length * 8);
+		DataOutputStream out = new DataOutputStream(bytes);
+		try {
+			out.writeInt(MAGIC);
+			out.writeByte(VERSION);
+			out.writeInt(mPlies);
+			out.write(mPieces);
+			out.writeByte(mSideToMove);
+			out.writeByte(mCastlingRights);
+			out.writeByte(mEnPassantSquare);
+			out.writeInt(mMoveCount);
+			out.writeLong(mHashKey);
+			out.writeInt(mHashHistory.length);
+			for (int i = 0; i < mHashHistory.length; i++) {
+				out.writeLong(mHashHistory[i]);
+			}
+			out.writeLong(mWhiteTime);
+			out.writeLong(mBlackTime);
+			out.writeInt(mLastMove);
+			out.writeInt(mCaptured.length);
+			out.write(mCaptured);
+			out.writeInt(mAnnotations.length);
+			for (int i = 0; i < mAnnotations.length; i++) {
+				out.writeUTF(mAnnotations[i]);
+			}
+			out.flush();
+		} catch (IOException e) {
+			// A ByteArrayOutputStream never throws
+			throw new IllegalStateException(e);
+		}
+		return bytes.toByteArray();
+	}
+
+	/**
+	 * Reads a snapshot written by toByteArray()
+	 * 
+	 * @param data
+	 *            The snapshot in binary form
+	 * @return The snapshot
+	 * @throws IOException
+	 *             If the data is not a complete snapshot of this version
+	 */
+	public static PositionSnapshot read(byte[] data) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+		if (in.readInt() != MAGIC || in.readByte() != VERSION) {
+			throw new IOException("Not a snapshot of version " + VERSION);
+		}
+		int plies = in.readInt();
+		byte[] pieces = new byte[SQUARES];
+		in.readFully(pieces);
+		int sideToMove = in.readByte();
+		int castlingRights = in.readByte();
+		int enPassantSquare = in.readByte();
+		int moveCount = in.readInt();
+		long hashKey = in.readLong();
+		long[] hashHistory = new long[readLength(in)];
+		for (int i = 0; i < hashHistory.length; i++) {
+			hashHistory[i] = in.readLong();
+		}
+		long whiteTime = in.readLong();
+		long blackTime = in.readLong();
+		int lastMove = in.readInt();
+		byte[] captured = new byte[readLength(in)];
+		in.readFully(captured);
+		String[] annotations = new String[readLength(in)];
+		for (int i = 0; i < annotations.length; i++) {
+			annotations[i] = in.readUTF();
+		}
+		if (in.read() != -1) {
+			throw new IOException("Trailing data after snapshot");
+		}
+		return new PositionSnapshot(plies, pieces, sideToMove,
+				castlingRights, enPassantSquare, moveCount, hashKey,
+				hashHistory, whiteTime, blackTime, lastMove, captured,
+				annotations);
+	}
+
+	private static int readLength(DataInputStream in) throws IOException {
+		int length = in.readInt();
+		if (length < 0 || length > MAX_LENGTH) {
+			throw new IOException("Invalid length: " + length);
+		}
+		return length;
+	}
+
+	/**
+	 * Gets the code a piece is stored as. 0 is used for empty squares.
+	 * 
+	 * @param piece
+	 *            The piece to encode
+	 * @return The code of the piece
+	 */
+	static byte pieceCode(Chesspiece piece) {
+		return (byte) (1 + piece.getColor() * PIECES.length() + piece
+				.getType());
+	}
+
+	/**
+	 * Gets the FEN character of a piece stored by pieceCode()
+	 * 
+	 * @param code
+	 *            The code of the piece
+	 * @return The FEN character, upper case for white
+	 * @throws IllegalArgumentException
+	 *             If the code isn't a piece
+	 */
+	static char fenCharacter(byte code) {
+		if (code < 1 || code > 2 * PIECES.length()) {
+			throw new IllegalArgumentException("Invalid piece code: " + code);
+		}
+		char c = PIECES.charAt((code - 1) % PIECES.length());
+		if ((code - 1) / PIECES.length() == Chesspiece.WHITE) {
+			return Character.toUpperCase(c);
+		}
+		return c;
+	}
+}
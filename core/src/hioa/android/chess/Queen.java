@@ -0,0 +1,34 @@
+package hioa.android.chess;
+
+/**
+ * Represents a queen
+ * 
+ * @author Lars Staberget
+ * @version 2013-11-10
+ */
+
+public class Queen extends Chesspiece {
+
+	public Queen(int color, int row, int column) {
+		setColor(color);
+		setRow(row);
+		setColumn(column);
+	}
+
+	@Override
+	public boolean sameClass(Chesspiece piece) {
+		return (piece instanceof Queen);
+	}
+
+	@Override
+	public int getType() {
+		return Bitboard.QUEEN;
+	}
+
+	@Override
+	public boolean threatensPosition(int row, int column) {
+		long attacks = MagicBitboard.queenAttacks(getSquare(), getChessboard().getBitboard().getOccupied());
+		return (attacks & Bitboard.bit(Bitboard.square(row, column))) != 0;
+	}
+
+}
@@ -0,0 +1,38 @@
+package hioa.android.chess;
+
+/**
+ * Represents a rook
+ * 
+ * @author Lars Staberget
+ * @version 2013-11-10
+ */
+
+public class Rook extends Chesspiece {
+
+	public Rook(int color, int row, int column) {
+		setColor(color);
+		setRow(row);
+		setColumn(column);
+	}
+
+	@Override
+	public boolean sameClass(Chesspiece piece) {
+		return (piece instanceof Rook);
+	}
+
+	@Override
+	public int getType() {
+		return Bitboard.ROOK;
+	}
+
+	public boolean canCastle() {
+		return !hasMoved();
+	}
+
+	@Override
+	public boolean threatensPosition(int row, int column) {
+		long attacks = MagicBitboard.rookAttacks(getSquare(), getChessboard().getBitboard().getOccupied());
+		return (attacks & Bitboard.bit(Bitboard.square(row, column))) != 0;
+	}
+
+}
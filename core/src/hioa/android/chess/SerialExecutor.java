@@ -0,0 +1,141 @@
+package hioa.android.chess;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Runs the commands of one game one at a time, in the order they were given,
+ * on a pool of threads shared by many games
+ * <p>
+ * Commands may be given from any thread. They are put in a queue without
+ * locking: every thread that adds a command swaps it in as the tail of the
+ * queue and then links the old tail to it, and only the thread that runs the
+ * commands takes them from the head. The executor only occupies a thread of
+ * the pool while it has commands, and gives the thread back after BATCH
+ * commands so that one busy game can't keep the others waiting.
+ * 
+ * @author Lars Staberget
+ * @version 2013-11-24
+ */
+
+public class SerialExecutor implements Executor {
+
+	/**
+	 * The most commands run before the thread is given back to the pool
+	 */
+	private static final int BATCH = 64;
+
+	private static ExecutorService sPool;
+
+	private final Executor mPool;
+	/**
+	 * The last command added. Swapped by the threads that add commands.
+	 */
+	private final AtomicReference<Node> mTail;
+	/**
+	 * The last command taken. Only used by the thread running the commands.
+	 */
+	private Node mHead;
+	/**
+	 * True while the commands are being run, or are about to be
+	 */
+	private final AtomicBoolean mScheduled = new AtomicBoolean();
+	private final Runnable mDrain = new Runnable() {
+		public void run() {
+			drain();
+		}
+	};
+
+	/**
+	 * Creates an executor that runs on a pool with a thread for each
+	 * processor, shared by every executor created this way
+	 */
+	public SerialExecutor() {
+		this(getSharedPool());
+	}
+
+	/**
+	 * @param pool
+	 *            The threads to run the commands on
+	 */
+	public SerialExecutor(Executor pool) {
+		mPool = pool;
+		mHead = new Node(null);
+		mTail = new AtomicReference<Node>(mHead);
+	}
+
+	private static synchronized ExecutorService getSharedPool() {
+		if (sPool == null) {
+			sPool = Executors.newFixedThreadPool(Runtime.getRuntime()
+					.availableProcessors(), new ThreadFactory() {
+				public Thread newThread(Runnable runnable) {
+					Thread thread = new Thread(runnable, "Game");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+		}
+		return sPool;
+	}
+
+	/**
+	 * Queues a command, to be run after every command queued before it
+	 * 
+	 * @param command
+	 *            The command
+	 */
+	public void execute(Runnable command) {
+		if (command == null) {
+			throw new NullPointerException();
+		}
+		Node node = new Node(command);
+		mTail.getAndSet(node).mNext = node;
+		schedule();
+	}
+
+	private void schedule() {
+		if (mScheduled.compareAndSet(false, true)) {
+			mPool.execute(mDrain);
+		}
+	}
+
+	private void drain() {
+		for (int i = 0; i < BATCH; i++) {
+			Node next = mHead.mNext;
+			if (next == null) {
+				break;
+			}
+			mHead = next;
+			Runnable command = next.mCommand;
+			next.mCommand = null;
+			try {
+				command.run();
+			} catch (RuntimeException e) {
+				// A failing command must not stop the commands after it
+				Thread thread = Thread.currentThread();
+				thread.getUncaughtExceptionHandler().uncaughtException(thread,
+						e);
+			}
+		}
+		mScheduled.set(false);
+		// A command may have been added after the loop stopped looking, by a
+		// thread that saw mScheduled still set. The tail is swapped before the
+		// link is made, so it tells if the queue is empty.
+		if (mTail.get() != mHead) {
+			schedule();
+		}
+	}
+
+	private static class Node {
+		Runnable mCommand;
+		volatile Node mNext;
+
+		Node(Runnable command) {
+			mCommand = command;
+		}
+	}
+}
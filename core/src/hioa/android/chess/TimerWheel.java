@@ -0,0 +1,326 @@
+package hioa.android.chess;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs delayed tasks for any number of clocks on a single thread
+ * <p>
+ * Time is divided into ticks. A task is put in one of the 64 slots of the
+ * lowest level if it's due within 64 ticks, in a slot of the next level if
+ * it's due within 64 * 64 ticks and so on. When the lowest level has gone
+ * round once, the next slot of the level above is emptied into the levels
+ * below it. Scheduling and cancelling a task therefore take the same time no
+ * matter how many tasks are waiting.
+ * <p>
+ * Every level keeps a bit for each slot that has tasks in it. The thread uses
+ * them to find the next tick where something happens and sleeps until then,
+ * so it costs nothing while there's nothing to do, and nothing for the tasks
+ * that aren't due yet.
+ * <p>
+ * The tasks are run on the thread of the wheel, one at a time, and should be
+ * short. They are never run while the wheel is locked, so they may schedule
+ * and cancel other tasks.
+ * 
+ * @author Lars Staberget
+ * @version 2013-11-24
+ */
+
+public class TimerWheel {
+
+	private static final int SLOT_BITS = 6;
+	private static final int SLOTS = 1 << SLOT_BITS;
+	private static final int LEVELS = 4;
+	/**
+	 * Tasks due after this many ticks are parked in the last slot the wheel
+	 * can hold, and placed again when that slot is emptied
+	 */
+	private static final long MAX_DELTA = (1L << (SLOT_BITS * LEVELS)) - 1;
+	private static final long NEVER = Long.MAX_VALUE;
+
+	private static TimerWheel sShared;
+
+	private final long mTickNanos;
+	private final long mStart = System.nanoTime();
+	/**
+	 * The first task of every slot, indexed by level and slot
+	 */
+	private final Timeout[][] mSlots = new Timeout[LEVELS][SLOTS];
+	/**
+	 * A bit for every slot that has tasks, indexed by level
+	 */
+	private final long[] mOccupied = new long[LEVELS];
+	/**
+	 * The last tick that has been processed
+	 */
+	private long mTick;
+	/**
+	 * The tick the thread sleeps until, NEVER if it waits for a task
+	 */
+	private long mWakeTick = NEVER;
+	private Thread mThread;
+
+	/**
+	 * Gets the wheel shared by all clocks that aren't given one, with a tick
+	 * of one millisecond
+	 * 
+	 * @return The shared wheel
+	 */
+	public static synchronized TimerWheel getShared() {
+		if (sShared == null) {
+			sShared = new TimerWheel(1);
+		}
+		return sShared;
+	}
+
+	/**
+	 * @param tickMillis
+	 *            The length of a tick. Tasks are run at the first tick after
+	 *            they are due.
+	 */
+	public TimerWheel(long tickMillis) {
+		if (tickMillis <= 0) {
+			throw new IllegalArgumentException("Invalid tick: " + tickMillis);
+		}
+		mTickNanos = TimeUnit.MILLISECONDS.toNanos(tickMillis);
+	}
+
+	/**
+	 * Runs a task on the thread of the wheel after a delay
+	 * 
+	 * @param task
+	 *            The task to run
+	 * @param delay
+	 *            The least time until the task is run
+	 * @param unit
+	 *            The unit of delay
+	 * @return The handle used to cancel the task
+	 */
+	public synchronized Timeout schedule(Runnable task, long delay,
+			TimeUnit unit) {
+		long nanos = Math.max(0, unit.toNanos(delay));
+		long due = System.nanoTime() - mStart + nanos;
+		if (isEmpty()) {
+			// The thread is idle, and no task depends on the ticks it missed
+			mTick = Math.max(mTick, (due - nanos) / mTickNanos);
+		}
+		// Rounded up, so the task is never run early
+		Timeout timeout = new Timeout(task, Math.max(mTick + 1,
+				(due + mTickNanos - 1) / mTickNanos));
+		add(timeout);
+		if (mThread == null) {
+			mThread = new Thread(new Runnable() {
+				public void run() {
+					loop();
+				}
+			}, "TimerWheel");
+			mThread.setDaemon(true);
+			mThread.start();
+		} else if (timeout.mDeadline < mWakeTick) {
+			notify();
+		}
+		return timeout;
+	}
+
+	private boolean isEmpty() {
+		for (int level = 0; level < LEVELS; level++) {
+			if (mOccupied[level] != 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Puts a task in the slot matching its deadline
+	 */
+	private void add(Timeout timeout) {
+		long delta = Math.min(timeout.mDeadline - mTick, MAX_DELTA);
+		long deadline = mTick + delta;
+		int level = 0;
+		while (delta >= 1L << (SLOT_BITS * (level + 1))) {
+			level++;
+		}
+		int slot = (int) (deadline >>> (SLOT_BITS * level)) & (SLOTS - 1);
+		Timeout first = mSlots[level][slot];
+		timeout.mNext = first;
+		if (first != null) {
+			first.mPrevious = timeout;
+		}
+		mSlots[level][slot] = timeout;
+		mOccupied[level] |= 1L << slot;
+		timeout.mLevel = level;
+		timeout.mSlot = slot;
+	}
+
+	private void remove(Timeout timeout) {
+		if (timeout.mPrevious != null) {
+			timeout.mPrevious.mNext = timeout.mNext;
+		} else {
+			mSlots[timeout.mLevel][timeout.mSlot] = timeout.mNext;
+			if (timeout.mNext == null) {
+				mOccupied[timeout.mLevel] &= ~(1L << timeout.mSlot);
+			}
+		}
+		if (timeout.mNext != null) {
+			timeout.mNext.mPrevious = timeout.mPrevious;
+		}
+		timeout.mPrevious = timeout.mNext = null;
+		timeout.mLevel = -1;
+	}
+
+	/**
+	 * Takes every task out of a slot
+	 * 
+	 * @return The first task of the slot, linked to the others by mNext
+	 */
+	private Timeout takeSlot(int level, int slot) {
+		Timeout first = mSlots[level][slot];
+		mSlots[level][slot] = null;
+		mOccupied[level] &= ~(1L << slot);
+		for (Timeout timeout = first; timeout != null; timeout = timeout.mNext) {
+			timeout.mLevel = -1;
+			timeout.mPrevious = null;
+		}
+		return first;
+	}
+
+	/**
+	 * Finds the next tick where a slot of the lowest level is due, or a slot
+	 * of a higher level has to be emptied
+	 * 
+	 * @return The tick, or NEVER if the wheel is empty
+	 */
+	private long nextTick() {
+		long next = NEVER;
+		for (int level = 0; level < LEVELS; level++) {
+			if (mOccupied[level] == 0) {
+				continue;
+			}
+			int shift = SLOT_BITS * level;
+			long block = (mTick >>> shift) + 1;
+			// The distance from the next slot to the first occupied one
+			int distance = Long.numberOfTrailingZeros(Long.rotateRight(
+					mOccupied[level], (int) block & (SLOTS - 1)));
+			next = Math.min(next, (block + distance) << shift);
+		}
+		return next;
+	}
+
+	/**
+	 * Processes one tick: the slots of the higher levels that are due are
+	 * emptied into the levels below, and the tasks due at the tick are
+	 * collected
+	 */
+	private void advance(long tick, List<Timeout> due) {
+		mTick = tick;
+		for (int level = 1; level < LEVELS; level++) {
+			int shift = SLOT_BITS * level;
+			if ((tick & ((1L << shift) - 1)) != 0) {
+				break;
+			}
+			int slot = (int) (tick >>> shift) & (SLOTS - 1);
+			Timeout timeout = takeSlot(level, slot);
+			while (timeout != null) {
+				Timeout next = timeout.mNext;
+				timeout.mNext = null;
+				add(timeout);
+				timeout = next;
+			}
+		}
+		int slot = (int) tick & (SLOTS - 1);
+		Timeout timeout = takeSlot(0, slot);
+		while (timeout != null) {
+			Timeout next = timeout.mNext;
+			timeout.mNext = null;
+			due.add(timeout);
+			timeout = next;
+		}
+	}
+
+	private void loop() {
+		List<Timeout> due = new ArrayList<Timeout>();
+		while (true) {
+			synchronized (this) {
+				while (due.isEmpty()) {
+					long now = (System.nanoTime() - mStart) / mTickNanos;
+					for (long tick = nextTick(); tick <= now; tick = nextTick()) {
+						advance(tick, due);
+					}
+					// Nothing happens in the ticks in between
+					mTick = Math.max(mTick, now);
+					if (!due.isEmpty()) {
+						break;
+					}
+					mWakeTick = nextTick();
+					try {
+						if (mWakeTick == NEVER) {
+							wait();
+						} else {
+							long nanos = mStart + mWakeTick * mTickNanos
+									- System.nanoTime();
+							if (nanos > 0) {
+								TimeUnit.NANOSECONDS.timedWait(this, nanos);
+							}
+						}
+					} catch (InterruptedException e) {
+						// Nothing interrupts the thread but the wheel itself
+					}
+					mWakeTick = NEVER;
+				}
+			}
+			for (int i = 0; i < due.size(); i++) {
+				due.get(i).run();
+			}
+			due.clear();
+		}
+	}
+
+	/**
+	 * A task waiting in the wheel
+	 */
+	public class Timeout {
+		private final Runnable mTask;
+		final long mDeadline;
+		private Timeout mPrevious, mNext;
+		/**
+		 * The level the task is in, -1 when it's not in the wheel
+		 */
+		private int mLevel = -1, mSlot;
+		private boolean mCancelled;
+
+		Timeout(Runnable task, long deadline) {
+			mTask = task;
+			mDeadline = deadline;
+		}
+
+		/**
+		 * Keeps the task from running, unless it has already started
+		 */
+		public void cancel() {
+			synchronized (TimerWheel.this) {
+				mCancelled = true;
+				if (mLevel >= 0) {
+					remove(this);
+				}
+			}
+		}
+
+		private void run() {
+			synchronized (TimerWheel.this) {
+				if (mCancelled) {
+					return;
+				}
+			}
+			try {
+				mTask.run();
+			} catch (RuntimeException e) {
+				// One failing task must not stop the clocks of every other game
+				Thread thread = Thread.currentThread();
+				thread.getUncaughtExceptionHandler().uncaughtException(thread,
+						e);
+			}
+		}
+	}
+}
@@ -0,0 +1,67 @@
+package hioa.android.chess;
+
+import java.util.Random;
+
+/**
+ * The random keys used to hash positions
+ * <p>
+ * The hash of a position is the XOR of the keys for every piece on its square,
+ * the current castling rights, the file of the En-Passant square (if an enemy
+ * pawn can capture on it) and SIDE if it's black's turn. Since XOR is its own inverse the hash can
+ * be updated incrementally as pieces are placed and removed.
+ * <p>
+ * The keys are generated from a fixed seed so that hashes are the same every
+ * time the program runs.
+ * 
+ * @author Lars Staberget
+ * @version 2013-11-24
+ */
+
+public class Zobrist {
+
+	private static final long SEED = 2013;
+
+	/**
+	 * Castling rights as used to index CASTLING
+	 */
+	public static final int WHITE_KINGSIDE = 1, WHITE_QUEENSIDE = 2,
+			BLACK_KINGSIDE = 4, BLACK_QUEENSIDE = 8;
+
+	/**
+	 * Indexed by color, piece type and square as defined in {@link Bitboard}
+	 */
+	static final long[][][] PIECES = new long[2][6][64];
+	/**
+	 * Indexed by a combination of the castling rights
+	 */
+	static final long[] CASTLING = new long[16];
+	/**
+	 * Indexed by the column of the En-Passant square
+	 */
+	static final long[] EN_PASSANT = new long[8];
+	/**
+	 * Included in the hash when black is to move
+	 */
+	static final long SIDE;
+
+	static {
+		Random random = new Random(SEED);
+		for (int color = 0; color < 2; color++) {
+			for (int type = 0; type < 6; type++) {
+				for (int square = 0; square < 64; square++) {
+					PIECES[color][type][square] = random.nextLong();
+				}
+			}
+		}
+		for (int i = 0; i < CASTLING.length; i++) {
+			CASTLING[i] = random.nextLong();
+		}
+		for (int i = 0; i < EN_PASSANT.length; i++) {
+			EN_PASSANT[i] = random.nextLong();
+		}
+		SIDE = random.nextLong();
+	}
+
+	private Zobrist() {
+	}
+}
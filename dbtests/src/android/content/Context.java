@@ -0,0 +1,15 @@
+package android.content;
+
+/**
+ * Stands in for the Android class, which the database classes only pass on
+ * 
+ * @author Lars Staberget
+ * @version 2013-11-24
+ */
+
+public class Context {
+
+	public Context getApplicationContext() {
+		return this;
+	}
+}
@@ -0,0 +1,41 @@
+package android.database;
+
+/**
+ * The part of the Android interface used by the database classes
+ * 
+ * @author Lars Staberget
+ * @version 2013-11-24
+ */
+
+public interface Cursor {
+
+	int getCount();
+
+	int getPosition();
+
+	boolean moveToFirst();
+
+	boolean moveToNext();
+
+	boolean moveToPosition(int position);
+
+	int getColumnCount();
+
+	int getColumnIndex(String columnName);
+
+	String getColumnName(int columnIndex);
+
+	boolean isNull(int columnIndex);
+
+	int getInt(int columnIndex);
+
+	long getLong(int columnIndex);
+
+	String getString(int columnIndex);
+
+	byte[] getBlob(int columnIndex);
+
+	void close();
+
+	boolean isClosed();
+}
@@ -0,0 +1,147 @@
+package android.database;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A cursor over rows held in memory, like the Android class. The stand-in
+ * for SQLiteDatabase reads the whole result of a query into one.
+ * 
+ * @author Lars Staberget
+ * @version 2013-11-24
+ */
+
+public class MatrixCursor implements Cursor {
+
+	private final String[] mColumnNames;
+	private final List<Object[]> mRows = new ArrayList<Object[]>();
+	private int mPosition = -1;
+	private boolean mClosed;
+
+	public MatrixCursor(String[] columnNames) {
+		mColumnNames = columnNames;
+	}
+
+	public void addRow(Object[] columnValues) {
+		if (columnValues.length != mColumnNames.length) {
+			throw new IllegalArgumentException("Expected " + mColumnNames.length + " values, got "
+					+ columnValues.length);
+		}
+		mRows.add(columnValues.clone());
+	}
+
+	@Override
+	public int getCount() {
+		return mRows.size();
+	}
+
+	@Override
+	public int getPosition() {
+		return mPosition;
+	}
+
+	@Override
+	public boolean moveToFirst() {
+		return moveToPosition(0);
+	}
+
+	@Override
+	public boolean moveToNext() {
+		return moveToPosition(mPosition + 1);
+	}
+
+	@Override
+	public boolean moveToPosition(int position) {
+		if (position >= mRows.size()) {
+			mPosition = mRows.size();
+			return false;
+		}
+		if (position < 0) {
+			mPosition = -1;
+			return false;
+		}
+		mPosition = position;
+		return true;
+	}
+
+	@Override
+	public int getColumnCount() {
+		return mColumnNames.length;
+	}
+
+	@Override
+	public int getColumnIndex(String columnName) {
+		for (int i = 0; i < mColumnNames.length; i++) {
+			if (mColumnNames[i].equalsIgnoreCase(columnName)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	@Override
+	public String getColumnName(int columnIndex) {
+		return mColumnNames[columnIndex];
+	}
+
+	private Object get(int columnIndex) {
+		if (mPosition < 0 || mPosition >= mRows.size()) {
+			throw new IllegalStateException("No row at position " + mPosition);
+		}
+		return mRows.get(mPosition)[columnIndex];
+	}
+
+	@Override
+	public boolean isNull(int columnIndex) {
+		return get(columnIndex) == null;
+	}
+
+	/**
+	 * Like SQLite, a null or a text that isn't a number reads as 0
+	 */
+	@Override
+	public long getLong(int columnIndex) {
+		Object value = get(columnIndex);
+		if (value instanceof Number) {
+			return ((Number) value).longValue();
+		}
+		if (value instanceof String) {
+			try {
+				return (long) Double.parseDouble((String) value);
+			} catch (NumberFormatException e) {
+				return 0;
+			}
+		}
+		return 0;
+	}
+
+	@Override
+	public int getInt(int columnIndex) {
+		return (int) getLong(columnIndex);
+	}
+
+	@Override
+	public String getString(int columnIndex) {
+		Object value = get(columnIndex);
+		return value == null ? null : value.toString();
+	}
+
+	@Override
+	public byte[] getBlob(int columnIndex) {
+		Object value = get(columnIndex);
+		if (value instanceof String) {
+			return ((String) value).getBytes();
+		}
+		return (byte[]) value;
+	}
+
+	@Override
+	public void close() {
+		mClosed = true;
+	}
+
+	@Override
+	public boolean isClosed() {
+		return mClosed;
+	}
+}
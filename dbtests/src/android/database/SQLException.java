@@ -0,0 +1,21 @@
+package android.database;
+
+/**
+ * Stands in for the Android class, and wraps the errors of JDBC
+ * 
+ * @author Lars Staberget
+ * @version 2013-11-24
+ */
+
+public class SQLException extends RuntimeException {
+
+	private static final long serialVersionUID = 1L;
+
+	public SQLException(String message) {
+		super(message);
+	}
+
+	public SQLException(String message, Throwable cause) {
+		super(message, cause);
+	}
+}
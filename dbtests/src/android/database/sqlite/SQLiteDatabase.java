@@ -0,0 +1,266 @@
+package android.database.sqlite;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.Statement;
+
+import android.database.Cursor;
+import android.database.MatrixCursor;
+import android.database.SQLException;
+import android.os.CancellationSignal;
+
+/**
+ * Stands in for the Android class on a desktop JVM, so that the database
+ * classes of the game can be tested against a real SQLite through JDBC
+ * <p>
+ * Only the methods used by the game are here. They behave like the Android
+ * ones: transactions nest and are only committed if every level was marked
+ * successful, queries return a cursor positioned before the first row, and
+ * errors are thrown as {@link SQLException}.
+ * 
+ * @author Lars Staberget
+ * @version 2013-11-24
+ */
+
+public class SQLiteDatabase {
+
+	private final Connection mConnection;
+	private int mTransactionDepth;
+	private boolean mTransactionFailed;
+	/**
+	 * Whether the innermost transaction has been marked successful
+	 */
+	private boolean mTransactionSuccessful;
+
+	/**
+	 * Creates an empty database in memory, like the Android method
+	 * 
+	 * @param factory
+	 *            Not used
+	 * @return The database
+	 */
+	public static SQLiteDatabase create(CursorFactory factory) {
+		return open("jdbc:sqlite::memory:");
+	}
+
+	/**
+	 * Opens a database through JDBC
+	 * 
+	 * @param url
+	 *            The JDBC url of the database
+	 * @return The database
+	 */
+	static SQLiteDatabase open(String url) {
+		try {
+			return new SQLiteDatabase(DriverManager.getConnection(url));
+		} catch (java.sql.SQLException e) {
+			throw wrap(e, url);
+		}
+	}
+
+	private SQLiteDatabase(Connection connection) {
+		mConnection = connection;
+	}
+
+	private static SQLException wrap(java.sql.SQLException e, String sql) {
+		return new SQLException(e.getMessage() + ": " + sql, e);
+	}
+
+	public void execSQL(String sql) {
+		Statement statement = null;
+		try {
+			statement = mConnection.createStatement();
+			statement.execute(sql);
+		} catch (java.sql.SQLException e) {
+			throw wrap(e, sql);
+		} finally {
+			close(statement);
+		}
+	}
+
+	public void execSQL(String sql, Object[] bindArgs) {
+		PreparedStatement statement = null;
+		try {
+			statement = mConnection.prepareStatement(sql);
+			for (int i = 0; i < bindArgs.length; i++) {
+				statement.setObject(i + 1, bindArgs[i]);
+			}
+			statement.execute();
+		} catch (java.sql.SQLException e) {
+			throw wrap(e, sql);
+		} finally {
+			close(statement);
+		}
+	}
+
+	public Cursor rawQuery(String sql, String[] selectionArgs) {
+		PreparedStatement statement = null;
+		try {
+			statement = mConnection.prepareStatement(sql);
+			if (selectionArgs != null) {
+				for (int i = 0; i < selectionArgs.length; i++) {
+					statement.setString(i + 1, selectionArgs[i]);
+				}
+			}
+			ResultSet results = statement.executeQuery();
+			ResultSetMetaData meta = results.getMetaData();
+			String[] columns = new String[meta.getColumnCount()];
+			for (int i = 0; i < columns.length; i++) {
+				columns[i] = meta.getColumnLabel(i + 1);
+			}
+			MatrixCursor cursor = new MatrixCursor(columns);
+			while (results.next()) {
+				Object[] row = new Object[columns.length];
+				for (int i = 0; i < row.length; i++) {
+					row[i] = results.getObject(i + 1);
+				}
+				cursor.addRow(row);
+			}
+			results.close();
+			return cursor;
+		} catch (java.sql.SQLException e) {
+			throw wrap(e, sql);
+		} finally {
+			close(statement);
+		}
+	}
+
+	public Cursor query(String table, String[] columns, String selection, String[] selectionArgs, String groupBy,
+			String having, String orderBy, String limit) {
+		return query(false, table, columns, selection, selectionArgs, groupBy, having, orderBy, limit, null);
+	}
+
+	public Cursor query(boolean distinct, String table, String[] columns, String selection, String[] selectionArgs,
+			String groupBy, String having, String orderBy, String limit, CancellationSignal cancellationSignal) {
+		StringBuilder sql = new StringBuilder("select ");
+		if (distinct) {
+			sql.append("distinct ");
+		}
+		if (columns == null) {
+			sql.append('*');
+		} else {
+			for (int i = 0; i < columns.length; i++) {
+				if (i > 0) {
+					sql.append(", ");
+				}
+				sql.append(columns[i]);
+			}
+		}
+		sql.append(" from ").append(table);
+		append(sql, " where ", selection);
+		append(sql, " group by ", groupBy);
+		append(sql, " having ", having);
+		append(sql, " order by ", orderBy);
+		append(sql, " limit ", limit);
+		return rawQuery(sql.toString(), selectionArgs);
+	}
+
+	private static void append(StringBuilder sql, String clause, String value) {
+		if (value != null && value.length() > 0) {
+			sql.append(clause).append(value);
+		}
+	}
+
+	public SQLiteStatement compileStatement(String sql) {
+		try {
+			return new SQLiteStatement(mConnection, sql);
+		} catch (java.sql.SQLException e) {
+			throw wrap(e, sql);
+		}
+	}
+
+	public void beginTransaction() {
+		try {
+			if (mTransactionDepth == 0) {
+				mConnection.setAutoCommit(false);
+				mTransactionFailed = false;
+			}
+		} catch (java.sql.SQLException e) {
+			throw wrap(e, "begin");
+		}
+		mTransactionDepth++;
+		mTransactionSuccessful = false;
+	}
+
+	public void setTransactionSuccessful() {
+		if (mTransactionDepth == 0) {
+			throw new IllegalStateException("No transaction");
+		}
+		mTransactionSuccessful = true;
+	}
+
+	public void endTransaction() {
+		if (mTransactionDepth == 0) {
+			throw new IllegalStateException("No transaction");
+		}
+		if (!mTransactionSuccessful) {
+			mTransactionFailed = true;
+		}
+		// The enclosing level still has to mark itself
+		mTransactionSuccessful = false;
+		if (--mTransactionDepth > 0) {
+			return;
+		}
+		try {
+			if (mTransactionFailed) {
+				mConnection.rollback();
+			} else {
+				mConnection.commit();
+			}
+			mConnection.setAutoCommit(true);
+		} catch (java.sql.SQLException e) {
+			throw wrap(e, mTransactionFailed ? "rollback" : "commit");
+		}
+	}
+
+	public boolean inTransaction() {
+		return mTransactionDepth > 0;
+	}
+
+	/**
+	 * A database in memory has no log, so this only tells that it's allowed
+	 */
+	public boolean enableWriteAheadLogging() {
+		return true;
+	}
+
+	public int getVersion() {
+		Cursor cursor = rawQuery("PRAGMA user_version", null);
+		try {
+			return cursor.moveToFirst() ? cursor.getInt(0) : 0;
+		} finally {
+			cursor.close();
+		}
+	}
+
+	public void setVersion(int version) {
+		execSQL("PRAGMA user_version = " + version);
+	}
+
+	public void close() {
+		try {
+			mConnection.close();
+		} catch (java.sql.SQLException e) {
+			throw wrap(e, "close");
+		}
+	}
+
+	static void close(Statement statement) {
+		if (statement != null) {
+			try {
+				statement.close();
+			} catch (java.sql.SQLException e) {
+				// Nothing was left to do with it
+			}
+		}
+	}
+
+	/**
+	 * Not used, only here so the signatures match the Android ones
+	 */
+	public interface CursorFactory {
+	}
+}
@@ -0,0 +1,57 @@
+package android.database.sqlite;
+
+import android.content.Context;
+
+/**
+ * Stands in for the Android class, see {@link SQLiteDatabase}. Every helper
+ * opens its own database in memory, and creates or upgrades it the way
+ * Android does: in one transaction that also stores the new version.
+ * 
+ * @author Lars Staberget
+ * @version 2013-11-24
+ */
+
+public abstract class SQLiteOpenHelper {
+
+	private final int mVersion;
+	private SQLiteDatabase mDatabase;
+
+	public SQLiteOpenHelper(Context context, String name, SQLiteDatabase.CursorFactory factory, int version) {
+		mVersion = version;
+	}
+
+	public synchronized SQLiteDatabase getWritableDatabase() {
+		if (mDatabase == null) {
+			SQLiteDatabase db = SQLiteDatabase.create(null);
+			onConfigure(db);
+			int version = db.getVersion();
+			if (version != mVersion) {
+				db.beginTransaction();
+				try {
+					if (version == 0) {
+						onCreate(db);
+					} else {
+						onUpgrade(db, version, mVersion);
+					}
+					db.setVersion(mVersion);
+					db.setTransactionSuccessful();
+				} finally {
+					db.endTransaction();
+				}
+			}
+			onOpen(db);
+			mDatabase = db;
+		}
+		return mDatabase;
+	}
+
+	public void onConfigure(SQLiteDatabase db) {
+	}
+
+	public abstract void onCreate(SQLiteDatabase db);
+
+	public abstract void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion);
+
+	public void onOpen(SQLiteDatabase db) {
+	}
+}
@@ -0,0 +1,130 @@
+package android.database.sqlite;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+
+import android.database.SQLException;
+
+/**
+ * Stands in for the Android class, see {@link SQLiteDatabase}. The bound
+ * values are kept between executions, like on Android.
+ * 
+ * @author Lars Staberget
+ * @version 2013-11-24
+ */
+
+public class SQLiteStatement {
+
+	private final Connection mConnection;
+	private final String mSql;
+	private final PreparedStatement mStatement;
+
+	SQLiteStatement(Connection connection, String sql) throws java.sql.SQLException {
+		mConnection = connection;
+		mSql = sql;
+		mStatement = connection.prepareStatement(sql);
+	}
+
+	public void bindNull(int index) {
+		try {
+			mStatement.setObject(index, null);
+		} catch (java.sql.SQLException e) {
+			throw wrap(e);
+		}
+	}
+
+	public void bindLong(int index, long value) {
+		try {
+			mStatement.setLong(index, value);
+		} catch (java.sql.SQLException e) {
+			throw wrap(e);
+		}
+	}
+
+	public void bindString(int index, String value) {
+		try {
+			mStatement.setString(index, value);
+		} catch (java.sql.SQLException e) {
+			throw wrap(e);
+		}
+	}
+
+	public void bindBlob(int index, byte[] value) {
+		try {
+			mStatement.setBytes(index, value);
+		} catch (java.sql.SQLException e) {
+			throw wrap(e);
+		}
+	}
+
+	public void clearBindings() {
+		try {
+			mStatement.clearParameters();
+		} catch (java.sql.SQLException e) {
+			throw wrap(e);
+		}
+	}
+
+	/**
+	 * @return The row id of the inserted row, or -1 if no row was inserted
+	 */
+	public long executeInsert() {
+		try {
+			if (mStatement.executeUpdate() == 0) {
+				return -1;
+			}
+			Statement statement = mConnection.createStatement();
+			try {
+				ResultSet results = statement.executeQuery("select last_insert_rowid()");
+				results.next();
+				return results.getLong(1);
+			} finally {
+				SQLiteDatabase.close(statement);
+			}
+		} catch (java.sql.SQLException e) {
+			throw wrap(e);
+		}
+	}
+
+	/**
+	 * @return The number of rows changed
+	 */
+	public int executeUpdateDelete() {
+		try {
+			return mStatement.executeUpdate();
+		} catch (java.sql.SQLException e) {
+			throw wrap(e);
+		}
+	}
+
+	/**
+	 * @return The first column of the first row
+	 * @throws SQLException
+	 *             If there are no rows
+	 */
+	public long simpleQueryForLong() {
+		try {
+			ResultSet results = mStatement.executeQuery();
+			try {
+				if (!results.next()) {
+					throw new SQLException("No rows: " + mSql);
+				}
+				return results.getLong(1);
+			} finally {
+				results.close();
+			}
+		} catch (java.sql.SQLException e) {
+			throw wrap(e);
+		}
+	}
+
+	public void close() {
+		SQLiteDatabase.close(mStatement);
+	}
+
+	private SQLException wrap(java.sql.SQLException e) {
+		return new SQLException(e.getMessage() + ": " + mSql, e);
+	}
+}
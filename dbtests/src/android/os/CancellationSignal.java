@@ -0,0 +1,11 @@
+package android.os;
+
+/**
+ * Stands in for the Android class, which the database classes only pass on
+ * 
+ * @author Lars Staberget
+ * @version 2013-11-24
+ */
+
+public class CancellationSignal {
+}
@@ -0,0 +1,15 @@
+package android.provider;
+
+/**
+ * Stands in for the Android interface
+ * 
+ * @author Lars Staberget
+ * @version 2013-11-24
+ */
+
+public interface BaseColumns {
+
+	String _ID = "_id";
+
+	String _COUNT = "_count";
+}
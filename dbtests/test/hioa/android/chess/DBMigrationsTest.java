@@ -0,0 +1,370 @@
+package hioa.android.chess;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+/**
+ * Upgrades a database with the schema and the games of version 1 through
+ * every step of {@link DBMigrations}, and checks the schema after each step
+ * and the summaries once the old games have been converted
+ * 
+ * @author Lars Staberget
+ * @version 2013-11-24
+ */
+
+public class DBMigrationsTest {
+
+	private SQLiteDatabase mDb;
+
+	@Before
+	public void setUp() {
+		mDb = SQLiteDatabase.create(null);
+		// The schema as released in version 1, which must never change here
+		mDb.execSQL("create table game (_id integer primary key autoincrement, white_player text, "
+				+ "black_player text, played_on date, result text, moves text);");
+		mDb.execSQL("create table position (_id integer primary key autoincrement, white_player text, "
+				+ "black_player text, whitetime text, blacktime text, bonus text, time text, moves text);");
+	}
+
+	@After
+	public void tearDown() {
+		mDb.close();
+	}
+
+	/**
+	 * Inserts a game the way version 1 did
+	 */
+	private void insertOldGame(String white, String black, String date, String result) {
+		mDb.execSQL("insert into game (white_player, black_player, played_on, result, moves) values (?, ?, ?, ?, ?)",
+				new Object[] { white, black, date, result, "e4 e5" });
+	}
+
+	/**
+	 * Inserts a game the way DBAdapter does, adding the players if they're new
+	 */
+	private void insertGame(String white, String black, int plies, int result) {
+		mDb.execSQL("insert or ignore into player (name) values (?)", new Object[] { white });
+		mDb.execSQL("insert or ignore into player (name) values (?)", new Object[] { black });
+		mDb.execSQL("insert into game (white_id, black_id, moves, plies, result_code, played_at) values ((select "
+				+ "_id from player where name = ?), (select _id from player where name = ?), 'e4', ?, ?, ?)",
+				new Object[] { white, black, plies, result, System.currentTimeMillis() });
+	}
+
+	/**
+	 * Games between Ann, Bob, Cid and a player without a name, one of them
+	 * with a result that can't be read. In order of date.
+	 */
+	private void insertOldGames() {
+		insertOldGame("Ann", "Bob", "2013-11-01", "white_won");
+		insertOldGame("Bob", "Ann", "2013-11-02", "white_won");
+		insertOldGame("Ann", "Cid", "2013-11-03", "draw_agreed");
+		insertOldGame("Cid", "Ann", "2013-11-04", "black_won");
+		insertOldGame("Ann", "Bob", "2013-11-05", "black_won");
+		insertOldGame(null, "Bob", "2013-11-06", "resigned");
+		insertOldGame("Bob", "Cid", "2013-11-07", "draw_stalemate");
+	}
+
+	/**
+	 * Upgrades in one transaction, like SQLiteOpenHelper
+	 */
+	private void upgrade(int oldVersion, int newVersion) {
+		mDb.beginTransaction();
+		try {
+			DBMigrations.upgrade(mDb, oldVersion, newVersion);
+			mDb.setTransactionSuccessful();
+		} finally {
+			mDb.endTransaction();
+		}
+	}
+
+	/**
+	 * Runs the backfills to the end, like DBWriter
+	 * 
+	 * @return The number of batches that converted something
+	 */
+	private int backfill() {
+		int batches = 0;
+		while (DBMigrations.backfill(mDb)) {
+			batches++;
+		}
+		return batches;
+	}
+
+	private Set<String> columns(String table) {
+		Set<String> columns = new HashSet<String>();
+		Cursor cursor = mDb.rawQuery("PRAGMA table_info(" + table + ")", null);
+		try {
+			while (cursor.moveToNext()) {
+				columns.add(cursor.getString(cursor.getColumnIndex("name")));
+			}
+		} finally {
+			cursor.close();
+		}
+		return columns;
+	}
+
+	private Set<String> schema(String type) {
+		Set<String> names = new HashSet<String>();
+		Cursor cursor = mDb.rawQuery("select name from sqlite_master where type = ? and name not like 'sqlite_%'",
+				new String[] { type });
+		try {
+			while (cursor.moveToNext()) {
+				names.add(cursor.getString(0));
+			}
+		} finally {
+			cursor.close();
+		}
+		return names;
+	}
+
+	private static Set<String> set(String... names) {
+		Set<String> set = new HashSet<String>();
+		for (int i = 0; i < names.length; i++) {
+			set.add(names[i]);
+		}
+		return set;
+	}
+
+	private long scalar(String sql, String... args) {
+		Cursor cursor = mDb.rawQuery(sql, args);
+		try {
+			assertTrue("No rows: " + sql, cursor.moveToFirst());
+			return cursor.getLong(0);
+		} finally {
+			cursor.close();
+		}
+	}
+
+	/**
+	 * @return The columns of the first row, as numbers
+	 */
+	private long[] row(String sql, String... args) {
+		Cursor cursor = mDb.rawQuery(sql, args);
+		try {
+			assertTrue("No rows: " + sql, cursor.moveToFirst());
+			long[] row = new long[cursor.getColumnCount()];
+			for (int i = 0; i < row.length; i++) {
+				row[i] = cursor.getLong(i);
+			}
+			return row;
+		} finally {
+			cursor.close();
+		}
+	}
+
+	private long[] playerStats(String name) {
+		return row("select wins, losses, draws, streak, best_streak, worst_streak from player_stats "
+				+ "where player_id = (select _id from player where name = ?)", name);
+	}
+
+	private long[] headToHead(String name, String opponent) {
+		return row("select wins, losses, draws from head_to_head where player_id = (select _id from player where "
+				+ "name = ?) and opponent_id = (select _id from player where name = ?)", name, opponent);
+	}
+
+	private long playerResults(String name, int color, int result) {
+		return scalar("select games from player_results where player_id = (select _id from player where name = ?) "
+				+ "and color = ? and result_code = ?", name, String.valueOf(color), String.valueOf(result));
+	}
+
+	@Test
+	public void testEachStep() {
+		insertOldGames();
+
+		upgrade(1, 2);
+		assertTrue(columns("position").contains("snapshot"));
+
+		upgrade(2, 3);
+		assertEquals(set("ply", "moves", "whitetime", "blacktime"), columns("journal"));
+
+		upgrade(3, 4);
+		assertEquals(set("_id", "name"), columns("player"));
+		assertTrue(columns("game").containsAll(set("played_at", "result_code", "white_id", "black_id")));
+		assertTrue(schema("index").containsAll(set("game_result", "game_white", "game_black", "game_date")));
+		// The old games are left to the backfill
+		assertEquals(7, scalar("select count(*) from game where played_at is null"));
+
+		upgrade(4, 5);
+		assertTrue(schema("table").containsAll(set("result_stats", "player_stats")));
+		assertEquals(set("game_counted_insert", "game_counted_update"), schema("trigger"));
+
+		upgrade(5, 6);
+		assertTrue(columns("game").contains("plies"));
+		assertTrue(columns("player_stats").containsAll(set("streak", "best_streak", "worst_streak")));
+		assertTrue(schema("table").containsAll(set("player_results", "head_to_head")));
+		assertEquals(set("game_counted_insert", "game_counted_update"), schema("trigger"));
+		assertEquals(6, DBMigrations.VERSION);
+	}
+
+	@Test
+	public void testCreateMatchesUpgrade() {
+		upgrade(1, DBMigrations.VERSION);
+		List<String> upgraded = objects();
+		mDb.close();
+		mDb = SQLiteDatabase.create(null);
+		DBMigrations.create(mDb);
+		assertEquals(upgraded, objects());
+	}
+
+	/**
+	 * @return The type, name and SQL of every table, index and trigger
+	 */
+	private List<String> objects() {
+		List<String> objects = new ArrayList<String>();
+		Cursor cursor = mDb.rawQuery("select type, name, sql from sqlite_master order by type, name", null);
+		try {
+			while (cursor.moveToNext()) {
+				objects.add(cursor.getString(0) + " " + cursor.getString(1) + ": " + cursor.getString(2));
+			}
+		} finally {
+			cursor.close();
+		}
+		return objects;
+	}
+
+	@Test
+	public void testBackfill() throws Exception {
+		insertOldGames();
+		upgrade(1, DBMigrations.VERSION);
+		assertEquals(1, backfill());
+
+		assertEquals(0, scalar("select count(*) from game where played_at is null or result_code is null "
+				+ "or white_id is null or black_id is null"));
+		assertEquals(set("Ann", "Bob", "Cid", ""), names());
+		// The old dates are days in local time
+		SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd");
+		assertEquals(format.parse("2013-11-01").getTime(), scalar("select played_at from game where _id = 1"));
+		assertEquals(DBAdapter.UNKNOWN_RESULT, scalar("select result_code from game where _id = 6"));
+		assertEquals(DBAdapter.DRAW_STALEMATE, scalar("select result_code from game where _id = 7"));
+
+		int[] counts = new int[DBAdapter.DRAW_AGREED + 1];
+		Cursor cursor = mDb.rawQuery("select result_code, games from result_stats", null);
+		try {
+			while (cursor.moveToNext()) {
+				counts[cursor.getInt(0)] = cursor.getInt(1);
+			}
+		} finally {
+			cursor.close();
+		}
+		assertArrayEquals(new int[] { 1, 2, 2, 1, 0, 0, 1 }, counts);
+
+		// Wins, losses, draws, and the current, best and worst streak
+		assertArrayEquals(new long[] { 2, 2, 1, -1, 1, -1 }, playerStats("Ann"));
+		assertArrayEquals(new long[] { 2, 1, 1, 0, 2, -1 }, playerStats("Bob"));
+		assertArrayEquals(new long[] { 0, 1, 2, 0, 0, -1 }, playerStats("Cid"));
+		assertArrayEquals(new long[] { 0, 0, 0, 0, 0, 0 }, playerStats(""));
+
+		assertArrayEquals(new long[] { 1, 2, 0 }, headToHead("Ann", "Bob"));
+		assertArrayEquals(new long[] { 2, 1, 0 }, headToHead("Bob", "Ann"));
+		assertArrayEquals(new long[] { 1, 0, 1 }, headToHead("Ann", "Cid"));
+		assertArrayEquals(new long[] { 0, 0, 1 }, headToHead("Bob", "Cid"));
+
+		assertEquals(1, playerResults("Ann", Chesspiece.WHITE, DBAdapter.WHITE_WON));
+		assertEquals(1, playerResults("Ann", Chesspiece.WHITE, DBAdapter.BLACK_WON));
+		assertEquals(1, playerResults("Ann", Chesspiece.BLACK, DBAdapter.BLACK_WON));
+		assertEquals(1, playerResults("Bob", Chesspiece.BLACK, DBAdapter.UNKNOWN_RESULT));
+		// The length of the old games isn't known
+		assertEquals(0, scalar("select sum(measured_games) + sum(plies) from player_results"));
+	}
+
+	private Set<String> names() {
+		Set<String> names = new HashSet<String>();
+		Cursor cursor = mDb.rawQuery("select name from player", null);
+		try {
+			while (cursor.moveToNext()) {
+				names.add(cursor.getString(0));
+			}
+		} finally {
+			cursor.close();
+		}
+		return names;
+	}
+
+	@Test
+	public void testBackfillInBatches() {
+		int games = 2 * DBMigrations.BACKFILL_BATCH + 1;
+		for (int i = 0; i < games; i++) {
+			insertOldGame("Ann", "Bob", "2013-11-01", i % 2 == 0 ? "white_won" : "draw_claimed");
+		}
+		upgrade(1, DBMigrations.VERSION);
+		assertEquals(3, backfill());
+		assertFalse(DBMigrations.backfill(mDb));
+		assertEquals(0, scalar("select count(*) from game where played_at is null"));
+		assertEquals(DBMigrations.BACKFILL_BATCH + 1, scalar("select games from result_stats where result_code = ?",
+				String.valueOf(DBAdapter.WHITE_WON)));
+		assertArrayEquals(new long[] { DBMigrations.BACKFILL_BATCH + 1, 0, DBMigrations.BACKFILL_BATCH },
+				headToHead("Ann", "Bob"));
+	}
+
+	@Test
+	public void testGamesPlayedDuringBackfill() {
+		int batch = DBMigrations.BACKFILL_BATCH;
+		// Ann wins a whole batch of games, then loses one
+		for (int i = 0; i < batch; i++) {
+			insertOldGame("Ann", "Bob", "2013-11-01", "white_won");
+		}
+		insertOldGame("Ann", "Bob", "2013-11-02", "black_won");
+		upgrade(1, DBMigrations.VERSION);
+		assertTrue(DBMigrations.backfill(mDb));
+		// A game played before the last old game has been converted
+		insertGame("Ann", "Bob", 40, DBAdapter.WHITE_WON);
+		assertEquals(1, backfill());
+		assertArrayEquals(new long[] { batch + 1, 1, 0, 1, batch, -1 }, playerStats("Ann"));
+		assertArrayEquals(new long[] { 1, batch + 1, 0, -1, 1, -batch }, playerStats("Bob"));
+	}
+
+	@Test
+	public void testBackfillEndingOnFullBatch() {
+		for (int i = 0; i < DBMigrations.BACKFILL_BATCH; i++) {
+			insertOldGame("Ann", "Bob", "2013-11-01", "black_won");
+		}
+		upgrade(1, DBMigrations.VERSION);
+		insertGame("Bob", "Ann", 40, DBAdapter.BLACK_WON);
+		assertEquals(1, backfill());
+		assertArrayEquals(new long[] { 1, DBMigrations.BACKFILL_BATCH, 0, 1, 1, -DBMigrations.BACKFILL_BATCH },
+				playerStats("Ann"));
+	}
+
+	@Test
+	public void testUpgradeFromEveryVersion() {
+		for (int version = 1; version < DBMigrations.VERSION; version++) {
+			tearDown();
+			setUp();
+			insertOldGames();
+			upgrade(1, version);
+			upgrade(version, DBMigrations.VERSION);
+			backfill();
+			assertArrayEquals("From version " + version, new long[] { 2, 2, 1, -1, 1, -1 }, playerStats("Ann"));
+		}
+	}
+
+	@Test
+	public void testNewGamesAreCounted() {
+		insertOldGames();
+		upgrade(1, DBMigrations.VERSION);
+		backfill();
+		insertGame("Ann", "Bob", 40, DBAdapter.WHITE_WON);
+		assertArrayEquals(new long[] { 3, 2, 1, 1, 1, -1 }, playerStats("Ann"));
+		assertArrayEquals(new long[] { 2, 2, 1, -1, 2, -1 }, playerStats("Bob"));
+		assertArrayEquals(new long[] { 2, 2, 0 }, headToHead("Ann", "Bob"));
+		assertEquals(2, playerResults("Ann", Chesspiece.WHITE, DBAdapter.WHITE_WON));
+		assertArrayEquals(new long[] { 1, 40 }, row("select measured_games, plies from player_results where "
+				+ "player_id = (select _id from player where name = 'Ann') and color = ? and result_code = ?",
+				String.valueOf(Chesspiece.WHITE), String.valueOf(DBAdapter.WHITE_WON)));
+	}
+}
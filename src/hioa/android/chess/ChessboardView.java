@@ -1,7 +1,5 @@
 package hioa.android.chess;
 
-import java.util.Date;
-
 import android.app.AlertDialog;
 import android.app.Dialog;
 import android.content.ClipData;
@@ -50,6 +48,11 @@ public class ChessboardView extends TableLayout {
 	private int mCurrentPlayer = Chesspiece.WHITE;
 	private MediaPlayer mPlayer;
 	private boolean mMute;
+	/**
+	 * Shows the end of game dialog again after the board has been viewed, null
+	 * when it's not waiting
+	 */
+	private Runnable mShowEndDialog;
 
 	public ChessboardView(Context context, AttributeSet attributes) {
 		super(context, attributes);
@@ -58,11 +61,19 @@ public class ChessboardView extends TableLayout {
 		mResources = getResources();
 		mContext = context;
 
-		mChessboard = new Chessboard(context);
-		mChessboard.setChessboardView(this);
+		mChessboard = new Chessboard();
 		initializeButtonArray();
 	}
 
+	@Override
+	protected void onDetachedFromWindow() {
+		if (mShowEndDialog != null) {
+			removeCallbacks(mShowEndDialog);
+			mShowEndDialog = null;
+		}
+		super.onDetachedFromWindow();
+	}
+
 	/**
 	 * Mute the sounds coming from this view
 	 * 
@@ -175,14 +186,16 @@ public class ChessboardView extends TableLayout {
 	}
 
 	/**
-	 * Sets the activity for this view and the underlying {@link Chessboard}
+	 * Sets the activity for this view and the underlying {@link Chessboard}.
+	 * The game is changed on the UI thread of the activity.
 	 * 
 	 * @param activity
 	 *            The activity to set
 	 */
 	public void setActivity(GameActivity activity) {
 		mActivity = activity;
-		mChessboard.setActivity(activity);
+		mChessboard.setListener(activity);
+		mChessboard.setExecutor(activity.getGameExecutor());
 	}
 
 	public void setPlayerNames(String whiteName, String blackName) {
@@ -204,9 +217,7 @@ public class ChessboardView extends TableLayout {
 		mChessboard.stopClock();
 		mRow = mColumn = mOldRow = mOldColumn = -1;
 		mActivity.setButtonsEnabled(false);
-		DBAdapter database = new DBAdapter(mContext);
-		database.open();
-		database.clearGameState();
+		DBWriter.getInstance(mContext).clearGameState();
 		setLegalMovesHint();
 
 		final Dialog dialog = new Dialog(mContext);
@@ -224,10 +235,10 @@ public class ChessboardView extends TableLayout {
 			@Override
 			public void onClick(View v) {
 				setButtonsEnabled(true);
-				mChessboard = new Chessboard(mContext);
+				mChessboard = new Chessboard();
 				mChessboard.setTime(mActivity.getStartTime(), mActivity.getBonusTime());
-				mChessboard.setChessboardView(ChessboardView.this);
-				mChessboard.setActivity(mActivity);
+				mChessboard.setListener(mActivity);
+				mChessboard.setExecutor(mActivity.getGameExecutor());
 				mCurrentPlayer = Chesspiece.WHITE;
 				mActivity.newGame(mChessboard);
 				placePieces();
@@ -240,7 +251,7 @@ public class ChessboardView extends TableLayout {
 				final AlertDialog annotations = new AlertDialog.Builder(mActivity).create();
 				annotations.setTitle(R.string.btn_annotations);
 				final StringBuilder builder = new StringBuilder();
-				String[] moves = mChessboard.mPositionHashFactory.getMovesArray();
+				GameState state = mChessboard.getState();
 
 				/*
 				 * Don't waste your time trying to understand the string
@@ -252,26 +263,26 @@ public class ChessboardView extends TableLayout {
 				String space3 = "";
 				String white = "";
 				int spaces = 0;
-				for (int i = 0; i < mChessboard.mPositionHashFactory.getCurrentMovesIndex(); i++) {
+				for (int i = 0; i < state.getAnnotationCount(); i++) {
 					if (i % 2 == 0) {
 						moveNr = (i / 2) + 1;
 						if (moveNr == 10) {
 							space1 = "";
 							space2 = "";
 						}
-						white = moves[i];
+						white = state.getAnnotation(i);
 					} else {
 						spaces = 8 - white.length();
 						for (; spaces >= 0; spaces--) {
 							space3 += " ";
 						}
 						builder.append(String.format("%-10s%-10s%s", space1 + moveNr + ".", space2 + white, space3
-								+ moves[i] + "\n"));
+								+ state.getAnnotation(i) + "\n"));
 						space3 = "";
 					}
 				}
 				// White ends the game
-				if (mChessboard.mPositionHashFactory.getCurrentMovesIndex() % 2 != 0) {
+				if (state.getAnnotationCount() % 2 != 0) {
 					builder.append(String.format("%-10s%s", space1 + moveNr + ".", space2 + white));
 				}
 				annotations.setMessage(builder.toString());
@@ -304,18 +315,13 @@ public class ChessboardView extends TableLayout {
 			public void onClick(View v) {
 				setButtonsEnabled(false);
 				dialog.hide();
-				new Thread(new Runnable() {
+				mShowEndDialog = new Runnable() {
 					public void run() {
-						Date now = new Date();
-						while (new Date().getTime() - now.getTime() < VIEWBOARDTIME) {
-						}
-						mActivity.runOnUiThread(new Runnable() {
-							public void run() {
-								dialog.show();
-							}
-						});
+						mShowEndDialog = null;
+						dialog.show();
 					}
-				}).start();
+				};
+				postDelayed(mShowEndDialog, VIEWBOARDTIME);
 			}
 		});
 
@@ -332,12 +338,12 @@ public class ChessboardView extends TableLayout {
 		case DRAWAGREED:
 			title = mResources.getString(R.string.title_draw);
 			body = mResources.getString(R.string.txt_draw_agreed);
-			mChessboard.mPositionHashFactory.insertGameResult(PositionHashFactory.DRAW);
+			mChessboard.insertGameResult(PositionHashFactory.DRAW);
 			break;
 		case DRAWCLAIMED:
 			title = mResources.getString(R.string.title_draw);
 			body = mResources.getString(R.string.txt_draw_claimed);
-			mChessboard.mPositionHashFactory.insertGameResult(PositionHashFactory.DRAW);
+			mChessboard.insertGameResult(PositionHashFactory.DRAW);
 			break;
 		case WINCHECKMATE:
 			title = mResources.getString(R.string.title_win_checkmate);
@@ -348,7 +354,7 @@ public class ChessboardView extends TableLayout {
 			title = mResources.getString(R.string.title_win_resign);
 			body = loser + " " + mResources.getString(R.string.txt_win_resign_1) + " " + winner + " "
 					+ mResources.getString(R.string.txt_win_resign_2);
-			mChessboard.mPositionHashFactory.insertGameResult(color);
+			mChessboard.insertGameResult(color);
 			break;
 		case DRAWSTALEMATE:
 			title = mResources.getString(R.string.title_draw);
@@ -360,7 +366,7 @@ public class ChessboardView extends TableLayout {
 			title = mResources.getString(R.string.title_win_timeout);
 			body = loser + " " + mResources.getString(R.string.txt_win_timeout_1) + " " + winner + " "
 					+ mResources.getString(R.string.txt_win_timeout_2);
-			mChessboard.mPositionHashFactory.insertGameResult(color);
+			mChessboard.insertGameResult(color);
 		}
 
 		dialog.setTitle(title);
@@ -512,6 +518,8 @@ public class ChessboardView extends TableLayout {
 				} else if (mLegalMoves != null && mLegalMoves[row][column]) {
 					if (mSelected instanceof Pawn) {
 						if (row == 0 || row == mChessboard.getMaxRows() - 1) {
+							// The flag may fall while the player chooses a piece
+							mChessboard.setMoving(false);
 							promote((Pawn) mSelected, row, column);
 							return;
 						}
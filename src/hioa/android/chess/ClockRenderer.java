@@ -0,0 +1,137 @@
+package hioa.android.chess;
+
+import android.view.Choreographer;
+
+/**
+ * Shows the times of both players in their {@link PlayerFrame}s
+ * <p>
+ * Times may be given from any thread, as often as they change. Only times that
+ * change the displayed second are passed on, and they are shown at the next
+ * frame drawn by the display, so that any number of changes between two frames
+ * costs one update of the UI thread. The digits are looked up rather than
+ * formatted.
+ * 
+ * @author Lars Staberget
+ * @version 2013-11-24
+ */
+
+public class ClockRenderer implements Choreographer.FrameCallback {
+
+	private static final int NOTHING = -1;
+
+	/**
+	 * "00" to "59"
+	 */
+	private static final String[] DIGITS = new String[60];
+
+	static {
+		for (int i = 0; i < DIGITS.length; i++) {
+			DIGITS[i] = (i < 10 ? "0" : "") + i;
+		}
+	}
+
+	private final Choreographer mChoreographer;
+	/**
+	 * The frames of the players, indexed by color
+	 */
+	private final PlayerFrame[] mFrames = new PlayerFrame[2];
+	/**
+	 * The latest second of each color, indexed by color. Guarded by this.
+	 */
+	private final long[] mPending = { NOTHING, NOTHING };
+	/**
+	 * The second displayed for each color, indexed by color. Only used on the
+	 * UI thread.
+	 */
+	private final long[] mShown = { NOTHING, NOTHING };
+	/**
+	 * True while a frame callback is waiting to be run. Guarded by this.
+	 */
+	private boolean mPosted;
+
+	/**
+	 * Must be created on the UI thread
+	 * 
+	 * @param white
+	 *            The frame showing white's clock
+	 * @param black
+	 *            The frame showing black's clock
+	 */
+	public ClockRenderer(PlayerFrame white, PlayerFrame black) {
+		mChoreographer = Choreographer.getInstance();
+		mFrames[Chesspiece.WHITE] = white;
+		mFrames[Chesspiece.BLACK] = black;
+	}
+
+	/**
+	 * Sets the time of a color. It's shown at the next frame if it changes
+	 * the displayed second.
+	 * 
+	 * @param color
+	 *            The color whose time changed
+	 * @param time
+	 *            The remaining time in millis
+	 */
+	public void setTime(int color, long time) {
+		long second = Math.max(0, time) / 1000;
+		synchronized (this) {
+			if (mPending[color] == second) {
+				return;
+			}
+			mPending[color] = second;
+			if (mPosted) {
+				return;
+			}
+			mPosted = true;
+		}
+		mChoreographer.postFrameCallback(this);
+	}
+
+	/**
+	 * Stops showing the times. Called when the frames go away.
+	 */
+	public void stop() {
+		mChoreographer.removeFrameCallback(this);
+		synchronized (this) {
+			mPosted = false;
+		}
+	}
+
+	@Override
+	public void doFrame(long frameTimeNanos) {
+		long white, black;
+		synchronized (this) {
+			mPosted = false;
+			white = mPending[Chesspiece.WHITE];
+			black = mPending[Chesspiece.BLACK];
+		}
+		show(Chesspiece.WHITE, white);
+		show(Chesspiece.BLACK, black);
+	}
+
+	private void show(int color, long second) {
+		if (second == NOTHING || second == mShown[color]) {
+			return;
+		}
+		mShown[color] = second;
+		mFrames[color].setTime(format(second));
+	}
+
+	/**
+	 * Formats a time as hours, minutes and seconds, for example 01:05:09
+	 * 
+	 * @param seconds
+	 *            The time in seconds
+	 * @return The formatted time
+	 */
+	static String format(long seconds) {
+		long hours = seconds / 3600;
+		String hoursString;
+		if (hours < DIGITS.length) {
+			hoursString = DIGITS[(int) hours];
+		} else {
+			hoursString = String.valueOf(hours);
+		}
+		return hoursString + ":" + DIGITS[(int) (seconds / 60 % 60)] + ":" + DIGITS[(int) (seconds % 60)];
+	}
+}
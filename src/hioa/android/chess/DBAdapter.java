@@ -1,19 +1,25 @@
 package hioa.android.chess;
 
-import java.text.SimpleDateFormat;
 import java.util.Date;
 
-import android.annotation.SuppressLint;
-import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
 import android.database.SQLException;
 import android.database.sqlite.SQLiteDatabase;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
 import android.provider.BaseColumns;
 
 /**
  * This class handles all queries towards the database
+ * <p>
+ * The whole application shares one connection, opened the first time
+ * getInstance() is called and kept open until the process dies. Opening
+ * SQLite is expensive and a single connection lets it serialize the writes
+ * itself. The statements used while a game is played are compiled once and
+ * reused. They are not thread safe, so the write methods must only be called
+ * from one thread at a time, which in practice is the thread of
+ * {@link DBWriter}.
  * 
  * @author Lars Staberget
  * @version 2013-11-23
@@ -22,52 +28,150 @@ public class DBAdapter {
 	Context context;
 
 	static final String DB_NAME = "chess.db";
-	static final String TABLE = "game", TABLE_POSITION = "position";
+	static final String TABLE = "game", TABLE_POSITION = "position", TABLE_JOURNAL = "journal",
+			TABLE_PLAYER = "player", TABLE_RESULT_STATS = "result_stats", TABLE_PLAYER_STATS = "player_stats",
+			TABLE_PLAYER_RESULTS = "player_results", TABLE_HEAD_TO_HEAD = "head_to_head";
 	static final String ID = BaseColumns._ID;
-	static final String DATE = "played_on";
+	/**
+	 * The text columns of games played before version 4 of the database. They
+	 * are converted to the typed columns below, and aren't used for new games.
+	 */
+	static final String DATE = "played_on", RESULT = "result";
 	static final String WHITE_PLAYER = "white_player";
 	static final String BLACK_PLAYER = "black_player";
-	static final String RESULT = "result";
+	static final String PLAYED_AT = "played_at";
+	static final String RESULT_CODE = "result_code";
+	static final String WHITE_ID = "white_id";
+	static final String BLACK_ID = "black_id";
+	static final String NAME = "name";
+	static final String PLAYER_ID = "player_id";
+	static final String GAMES = "games";
+	static final String WINS = "wins";
+	static final String LOSSES = "losses";
+	static final String DRAWS = "draws";
+	static final String PLIES = "plies";
+	static final String STREAK = "streak";
+	static final String BEST_STREAK = "best_streak";
+	static final String WORST_STREAK = "worst_streak";
+	static final String COLOR = "color";
+	static final String MEASURED_GAMES = "measured_games";
+	static final String OPPONENT_ID = "opponent_id";
 	static final String MOVES = "moves";
 	static final String TIME = "time";
 	static final String WHITETIME = "whitetime";
 	static final String BLACKTIME = "blacktime";
 	static final String BONUS = "bonus";
-	static final int DB_VERSION = 1;
+	static final String SNAPSHOT = "snapshot";
+	static final String PLY = "ply";
+	static final int DB_VERSION = DBMigrations.VERSION;
+	/**
+	 * The number of moves between each time the whole game state is
+	 * rewritten. The moves in between are only appended to the journal.
+	 */
+	static final int JOURNAL_COMPACTION = 32;
+
+	/**
+	 * The results of a game, as stored in RESULT_CODE. UNKNOWN_RESULT is only
+	 * used for old games whose result couldn't be read.
+	 */
+	public static final int UNKNOWN_RESULT = 0, WHITE_WON = 1, BLACK_WON = 2, DRAW_STALEMATE = 3,
+			DRAW_REPETITION = 4, DRAW_CLAIMED = 5, DRAW_AGREED = 6;
 
-	public static final String WHITE_WON = "white_won", BLACK_WON = "black_won", DRAW_STALEMATE = "draw_stalemate",
-			DRAW_REPETITION = "draw_repetition", DRAW_CLAIMED = "draw_claimed", DRAW_AGREED = "draw_agreed";
+	private static DBAdapter sInstance;
 
 	private DatabaseHelper dbHelper;
 	private SQLiteDatabase database;
+	private SQLiteStatement mInsertState, mDeleteState, mClearJournal, mAppendMove, mUpdateStateTimes,
+			mUpdateJournalTimes, mInsertResult, mInsertPlayer, mFindPlayer;
 
 	/**
-	 * Create a new adapter for communicating with the database
+	 * Gets the adapter shared by the whole application, opening the database
+	 * the first time
 	 * 
 	 * @param context
-	 *            The current context
+	 *            Any context of the application
+	 * @return The adapter with an open connection towards the database
+	 * @throws SQLException
+	 *             If the database can't be opened
 	 */
-	public DBAdapter(Context context) {
+	public static synchronized DBAdapter getInstance(Context context) throws SQLException {
+		if (sInstance == null) {
+			sInstance = new DBAdapter(context.getApplicationContext());
+		}
+		return sInstance;
+	}
+
+	private DBAdapter(Context context) throws SQLException {
 		this.context = context;
 		this.dbHelper = new DatabaseHelper(this.context);
+		database = dbHelper.getWritableDatabase();
+		mInsertState = database.compileStatement("insert into " + TABLE_POSITION + " (" + MOVES + ", "
+				+ WHITE_PLAYER + ", " + BLACK_PLAYER + ", " + WHITETIME + ", " + BLACKTIME + ", " + BONUS + ", "
+				+ TIME + ", " + SNAPSHOT + ") values (?, ?, ?, ?, ?, ?, ?, ?)");
+		mDeleteState = database.compileStatement("delete from " + TABLE_POSITION);
+		mClearJournal = database.compileStatement("delete from " + TABLE_JOURNAL);
+		mAppendMove = database.compileStatement("insert into " + TABLE_JOURNAL + " (" + PLY + ", " + MOVES + ", "
+				+ WHITETIME + ", " + BLACKTIME + ") values (?, ?, ?, ?)");
+		mUpdateStateTimes = database.compileStatement("update " + TABLE_POSITION + " set " + WHITETIME + " = ?, "
+				+ BLACKTIME + " = ?");
+		mUpdateJournalTimes = database.compileStatement("update " + TABLE_JOURNAL + " set " + WHITETIME + " = ?, "
+				+ BLACKTIME + " = ? where " + PLY + " = (select max(" + PLY + ") from " + TABLE_JOURNAL + ")");
+		mInsertResult = database.compileStatement("insert into " + TABLE + " (" + WHITE_ID + ", " + BLACK_ID + ", "
+				+ MOVES + ", " + PLIES + ", " + RESULT_CODE + ", " + PLAYED_AT + ") values (?, ?, ?, ?, ?, ?)");
+		mInsertPlayer = database.compileStatement("insert or ignore into " + TABLE_PLAYER + " (" + NAME
+				+ ") values (?)");
+		mFindPlayer = database.compileStatement("select " + ID + " from " + TABLE_PLAYER + " where " + NAME
+				+ " = ?");
 	}
 
 	/**
-	 * Open a writeable connection towards the database
+	 * Binds a value that may be null to a statement
+	 */
+	private static void bind(SQLiteStatement statement, int index, String value) {
+		if (value == null) {
+			statement.bindNull(index);
+		} else {
+			statement.bindString(index, value);
+		}
+	}
+
+	/**
+	 * Begins a transaction. The calls made until endTransaction() are written
+	 * together, and only if setTransactionSuccessful() is called.
+	 */
+	public void beginTransaction() {
+		database.beginTransaction();
+	}
+
+	/**
+	 * Marks the current transaction as successful
+	 */
+	public void setTransactionSuccessful() {
+		database.setTransactionSuccessful();
+	}
+
+	/**
+	 * Ends the current transaction
+	 */
+	public void endTransaction() {
+		database.endTransaction();
+	}
+
+	/**
+	 * Runs one batch of the backfills of {@link DBMigrations}
 	 * 
-	 * @return A DBAdapter object with an open connection towards the database
-	 * @throws SQLException
+	 * @return true if there may be more to do
 	 */
-	public DBAdapter open() throws SQLException {
-		database = dbHelper.getWritableDatabase();
-		return this;
+	public boolean backfill() {
+		return DBMigrations.backfill(database);
 	}
 
 	/**
 	 * This is used to store the game state for rebuilding.
 	 * <p>
 	 * The method will automatically clear any already saved game states before
-	 * inserting this one.
+	 * inserting this one, including the moves in the journal since they are
+	 * part of this state.
 	 * 
 	 * @param moves
 	 *            The string of moves as defined by {@link PositionHashFactory}
@@ -84,19 +188,55 @@ public class DBAdapter {
 	 *            Bonus time per move
 	 * @param time
 	 *            Starting time per player
+	 * @param snapshot
+	 *            The position after the last move as returned by
+	 *            {@link Chessboard#getSnapshot()}
 	 */
 	public void insertGameState(String moves, String whiteName, String blackName, String whiteTime, String blackTime,
-			String bonus, String time) {
-		ContentValues values = new ContentValues();
-		values.put(MOVES, moves);
-		values.put(WHITE_PLAYER, whiteName);
-		values.put(BLACK_PLAYER, blackName);
-		values.put(WHITETIME, whiteTime);
-		values.put(BLACKTIME, blackTime);
-		values.put(BONUS, bonus);
-		values.put(TIME, time);
-		database.delete(TABLE_POSITION, null, null);
-		database.insert(TABLE_POSITION, null, values);
+			String bonus, String time, byte[] snapshot) {
+		bind(mInsertState, 1, moves);
+		bind(mInsertState, 2, whiteName);
+		bind(mInsertState, 3, blackName);
+		bind(mInsertState, 4, whiteTime);
+		bind(mInsertState, 5, blackTime);
+		bind(mInsertState, 6, bonus);
+		bind(mInsertState, 7, time);
+		if (snapshot == null) {
+			mInsertState.bindNull(8);
+		} else {
+			mInsertState.bindBlob(8, snapshot);
+		}
+		database.beginTransaction();
+		try {
+			mDeleteState.executeUpdateDelete();
+			mClearJournal.executeUpdateDelete();
+			mInsertState.executeInsert();
+			database.setTransactionSuccessful();
+		} finally {
+			database.endTransaction();
+		}
+	}
+
+	/**
+	 * Appends a move to the journal of the stored game state. Unlike
+	 * insertGameState() this costs the same no matter how long the game is.
+	 * 
+	 * @param ply
+	 *            The number of moves made, including this one
+	 * @param move
+	 *            The move as stored by {@link PositionHashFactory}
+	 *            .getIntMoves()
+	 * @param whiteTime
+	 *            White player's remaining time
+	 * @param blackTime
+	 *            Black player's remaining time
+	 */
+	public void appendMove(int ply, String move, long whiteTime, long blackTime) {
+		mAppendMove.bindLong(1, ply);
+		bind(mAppendMove, 2, move);
+		mAppendMove.bindLong(3, whiteTime);
+		mAppendMove.bindLong(4, blackTime);
+		mAppendMove.executeInsert();
 	}
 
 	/**
@@ -108,10 +248,14 @@ public class DBAdapter {
 	 *            Black's remaining time
 	 */
 	public void updateTimes(String whiteTime, String blackTime) {
-		ContentValues values = new ContentValues();
-		values.put(WHITETIME, whiteTime);
-		values.put(BLACKTIME, blackTime);
-		database.update(TABLE_POSITION, values, null, null);
+		bind(mUpdateStateTimes, 1, whiteTime);
+		bind(mUpdateStateTimes, 2, blackTime);
+		mUpdateStateTimes.executeUpdateDelete();
+		// The times of the last journaled move are the ones used when the game
+		// is resumed
+		bind(mUpdateJournalTimes, 1, whiteTime);
+		bind(mUpdateJournalTimes, 2, blackTime);
+		mUpdateJournalTimes.executeUpdateDelete();
 	}
 
 	/**
@@ -121,12 +265,24 @@ public class DBAdapter {
 	 *         is a saved game state
 	 */
 	public Cursor getGameState() {
-		String[] columns = { MOVES, WHITE_PLAYER, BLACK_PLAYER, WHITETIME, BLACKTIME, BONUS, TIME };
+		String[] columns = { MOVES, WHITE_PLAYER, BLACK_PLAYER, WHITETIME, BLACKTIME, BONUS, TIME, SNAPSHOT };
 		return database.query(TABLE_POSITION, columns, null, null, null, null, null, null);
 	}
 
 	/**
-	 * Inserts a game result into the database
+	 * Returns a cursor over the moves made since the game state was last
+	 * stored by insertGameState(), in the order they were made
+	 * 
+	 * @return A cursor with the columns MOVES, WHITETIME and BLACKTIME
+	 */
+	public Cursor getJournal() {
+		String[] columns = { MOVES, WHITETIME, BLACKTIME };
+		return database.query(TABLE_JOURNAL, columns, null, null, null, null, PLY + " ASC", null);
+	}
+
+	/**
+	 * Inserts a game result into the database. The summaries of the results
+	 * are updated by triggers, in the same transaction.
 	 * 
 	 * @param white_name
 	 *            The white player's name
@@ -134,21 +290,162 @@ public class DBAdapter {
 	 *            The black player's name
 	 * @param moves
 	 *            A string representing the moves that were made
+	 * @param plies
+	 *            The number of moves that were made, by both players
 	 * @param result
 	 *            The result(constants in this class)
 	 * @param date
 	 *            The date when the game was played
 	 */
-	@SuppressLint("SimpleDateFormat")
-	protected void insertGameResult(String white_name, String black_name, String moves, String result, Date date) {
-		ContentValues values = new ContentValues();
-		values.put(WHITE_PLAYER, white_name);
-		values.put(BLACK_PLAYER, black_name);
-		values.put(MOVES, moves);
-		values.put(RESULT, result);
-		SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd");
-		values.put(DATE, format.format(date));
-		database.insert(TABLE, null, values);
+	protected void insertGameResult(String white_name, String black_name, String moves, int plies, int result,
+			Date date) {
+		database.beginTransaction();
+		try {
+			mInsertResult.bindLong(1, getPlayerId(white_name));
+			mInsertResult.bindLong(2, getPlayerId(black_name));
+			bind(mInsertResult, 3, moves);
+			mInsertResult.bindLong(4, plies);
+			mInsertResult.bindLong(5, result);
+			mInsertResult.bindLong(6, date.getTime());
+			mInsertResult.executeInsert();
+			database.setTransactionSuccessful();
+		} finally {
+			database.endTransaction();
+		}
+	}
+
+	/**
+	 * Gets the id of a player, adding the player the first time the name is
+	 * used
+	 * 
+	 * @param name
+	 *            The player's name
+	 * @return The id of the player
+	 */
+	private long getPlayerId(String name) {
+		if (name == null) {
+			name = "";
+		}
+		mInsertPlayer.bindString(1, name);
+		mInsertPlayer.executeInsert();
+		mFindPlayer.bindString(1, name);
+		return mFindPlayer.simpleQueryForLong();
+	}
+
+	/**
+	 * Gets the number of games that ended with each result, from the summary
+	 * kept up to date as games are inserted
+	 * 
+	 * @return The number of games, indexed by the result constants
+	 */
+	public int[] getResultCounts() {
+		int[] counts = new int[DRAW_AGREED + 1];
+		Cursor cursor = database.rawQuery("select " + RESULT_CODE + ", " + GAMES + " from " + TABLE_RESULT_STATS,
+				null);
+		try {
+			while (cursor.moveToNext()) {
+				int result = cursor.getInt(0);
+				if (result >= 0 && result < counts.length) {
+					counts[result] = cursor.getInt(1);
+				}
+			}
+		} finally {
+			cursor.close();
+		}
+		return counts;
+	}
+
+	/**
+	 * Gets the wins, losses and draws of a player, from the summary kept up to
+	 * date as games are inserted
+	 * 
+	 * @param name
+	 *            The player's name
+	 * @return The wins, losses and draws, in that order. All 0 if the player
+	 *         has never finished a game.
+	 */
+	public int[] getPlayerRecord(String name) {
+		int[] record = new int[3];
+		Cursor cursor = database.rawQuery("select " + WINS + ", " + LOSSES + ", " + DRAWS + " from "
+				+ TABLE_PLAYER_STATS + " join " + TABLE_PLAYER + " on " + TABLE_PLAYER + "." + ID + " = " + PLAYER_ID
+				+ " where " + NAME + " = ?", new String[] { name });
+		try {
+			if (cursor.moveToFirst()) {
+				record[0] = cursor.getInt(0);
+				record[1] = cursor.getInt(1);
+				record[2] = cursor.getInt(2);
+			}
+		} finally {
+			cursor.close();
+		}
+		return record;
+	}
+
+	/**
+	 * Returns a cursor over the results of a player, summed up for each color
+	 * and result constant
+	 * 
+	 * @param name
+	 *            The player's name
+	 * @return A cursor with the columns COLOR, RESULT_CODE, GAMES, PLIES and
+	 *         MEASURED_GAMES, the number of games PLIES is the sum of
+	 */
+	public Cursor getPlayerResults(String name) {
+		return database.rawQuery("select " + COLOR + ", " + RESULT_CODE + ", " + GAMES + ", " + PLIES + ", "
+				+ MEASURED_GAMES + " from " + TABLE_PLAYER_RESULTS + " where " + PLAYER_ID + " = (select " + ID
+				+ " from " + TABLE_PLAYER + " where " + NAME + " = ?)", new String[] { name });
+	}
+
+	/**
+	 * Gets the current, best and worst streak of a player. A streak is the
+	 * number of wins in a row, or minus the number of losses in a row.
+	 * 
+	 * @param name
+	 *            The player's name
+	 * @return The current, best and worst streak, in that order
+	 */
+	public int[] getPlayerStreaks(String name) {
+		int[] streaks = new int[3];
+		Cursor cursor = database.rawQuery("select " + STREAK + ", " + BEST_STREAK + ", " + WORST_STREAK + " from "
+				+ TABLE_PLAYER_STATS + " where " + PLAYER_ID + " = (select " + ID + " from " + TABLE_PLAYER
+				+ " where " + NAME + " = ?)", new String[] { name });
+		try {
+			if (cursor.moveToFirst()) {
+				streaks[0] = cursor.getInt(0);
+				streaks[1] = cursor.getInt(1);
+				streaks[2] = cursor.getInt(2);
+			}
+		} finally {
+			cursor.close();
+		}
+		return streaks;
+	}
+
+	/**
+	 * Gets the wins, losses and draws of a player against one opponent
+	 * 
+	 * @param name
+	 *            The player's name
+	 * @param opponent
+	 *            The opponent's name
+	 * @return The wins, losses and draws, in that order
+	 */
+	public int[] getHeadToHead(String name, String opponent) {
+		int[] record = new int[3];
+		Cursor cursor = database.rawQuery("select " + WINS + ", " + LOSSES + ", " + DRAWS + " from "
+				+ TABLE_HEAD_TO_HEAD + " where " + PLAYER_ID + " = (select " + ID + " from " + TABLE_PLAYER
+				+ " where " + NAME + " = ?) and " + OPPONENT_ID + " = (select " + ID + " from " + TABLE_PLAYER
+				+ " where " + NAME + " = ?)", new String[] { name, opponent });
+		try {
+			if (cursor.moveToFirst()) {
+				record[0] = cursor.getInt(0);
+				record[1] = cursor.getInt(1);
+				record[2] = cursor.getInt(2);
+			}
+		} finally {
+			cursor.close();
+		}
+		return record;
 	}
 
 	/**
@@ -157,7 +454,8 @@ public class DBAdapter {
 	 * Usually called at the end of a game
 	 */
 	public void clearGameState() {
-		database.delete(TABLE_POSITION, null, null);
+		mDeleteState.executeUpdateDelete();
+		mClearJournal.executeUpdateDelete();
 	}
 
 	/**
@@ -178,8 +476,12 @@ public class DBAdapter {
 	 * @return A Cursor object positioned before the first entry
 	 */
 	protected Cursor query(String where, String having) {
-		String[] columns = { ID, WHITE_PLAYER, BLACK_PLAYER, DATE, RESULT, MOVES };
-		return database.query(false, TABLE, columns, where, null, null, having, WHITE_PLAYER + " ASC", null, null);
+		// The names are returned in the columns they used to be stored in
+		String[] columns = { TABLE + "." + ID, "white." + NAME + " as " + WHITE_PLAYER,
+				"black." + NAME + " as " + BLACK_PLAYER, PLAYED_AT, RESULT_CODE, MOVES };
+		String tables = TABLE + " join " + TABLE_PLAYER + " white on white." + ID + " = " + WHITE_ID + " join "
+				+ TABLE_PLAYER + " black on black." + ID + " = " + BLACK_ID;
+		return database.query(false, tables, columns, where, null, null, having, PLAYED_AT + " DESC", null, null);
 	}
 
 	/**
@@ -194,20 +496,28 @@ public class DBAdapter {
 			super(context, DB_NAME, null, DB_VERSION);
 		}
 
+		@Override
+		public void onConfigure(SQLiteDatabase db) {
+			// Readers no longer wait for the writer, and a commit only appends
+			// to the log instead of rewriting the database file
+			db.enableWriteAheadLogging();
+		}
+
+		@Override
+		public void onOpen(SQLiteDatabase db) {
+			// With a write-ahead log this can only lose the last commits if the
+			// device loses power, never corrupt the database
+			db.execSQL("PRAGMA synchronous = NORMAL");
+		}
+
 		@Override
 		public void onCreate(SQLiteDatabase db) {
-			String sql = "create table " + TABLE + " (" + ID + " integer primary key autoincrement, " + WHITE_PLAYER
-					+ " text, " + BLACK_PLAYER + " text, " + DATE + " date, " + RESULT + " text, " + MOVES + " text);";
-			db.execSQL(sql);
-			sql = "create table " + TABLE_POSITION + " (" + ID + " integer primary key autoincrement, " + WHITE_PLAYER
-					+ " text, " + BLACK_PLAYER + " text, " + WHITETIME + " text, " + BLACKTIME + " text, " + BONUS
-					+ " text, " + TIME + " text, " + MOVES + " text);";
-			db.execSQL(sql);
+			DBMigrations.create(db);
 		}
 
 		@Override
 		public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-			// Will never be called
+			DBMigrations.upgrade(db, oldVersion, newVersion);
 		}
 	}// end of DatabaseHelper
 }// end of DBAdapter
\ No newline at end of file
@@ -0,0 +1,472 @@
+package hioa.android.chess;
+
+import static hioa.android.chess.DBAdapter.BEST_STREAK;
+import static hioa.android.chess.DBAdapter.BLACKTIME;
+import static hioa.android.chess.DBAdapter.BLACK_ID;
+import static hioa.android.chess.DBAdapter.BLACK_PLAYER;
+import static hioa.android.chess.DBAdapter.BONUS;
+import static hioa.android.chess.DBAdapter.COLOR;
+import static hioa.android.chess.DBAdapter.DATE;
+import static hioa.android.chess.DBAdapter.DRAWS;
+import static hioa.android.chess.DBAdapter.GAMES;
+import static hioa.android.chess.DBAdapter.ID;
+import static hioa.android.chess.DBAdapter.LOSSES;
+import static hioa.android.chess.DBAdapter.MEASURED_GAMES;
+import static hioa.android.chess.DBAdapter.MOVES;
+import static hioa.android.chess.DBAdapter.NAME;
+import static hioa.android.chess.DBAdapter.OPPONENT_ID;
+import static hioa.android.chess.DBAdapter.PLAYED_AT;
+import static hioa.android.chess.DBAdapter.PLAYER_ID;
+import static hioa.android.chess.DBAdapter.PLIES;
+import static hioa.android.chess.DBAdapter.PLY;
+import static hioa.android.chess.DBAdapter.RESULT;
+import static hioa.android.chess.DBAdapter.RESULT_CODE;
+import static hioa.android.chess.DBAdapter.SNAPSHOT;
+import static hioa.android.chess.DBAdapter.STREAK;
+import static hioa.android.chess.DBAdapter.TABLE;
+import static hioa.android.chess.DBAdapter.TABLE_HEAD_TO_HEAD;
+import static hioa.android.chess.DBAdapter.TABLE_JOURNAL;
+import static hioa.android.chess.DBAdapter.TABLE_PLAYER;
+import static hioa.android.chess.DBAdapter.TABLE_PLAYER_RESULTS;
+import static hioa.android.chess.DBAdapter.TABLE_PLAYER_STATS;
+import static hioa.android.chess.DBAdapter.TABLE_POSITION;
+import static hioa.android.chess.DBAdapter.TABLE_RESULT_STATS;
+import static hioa.android.chess.DBAdapter.TIME;
+import static hioa.android.chess.DBAdapter.WHITETIME;
+import static hioa.android.chess.DBAdapter.WHITE_ID;
+import static hioa.android.chess.DBAdapter.WHITE_PLAYER;
+import static hioa.android.chess.DBAdapter.WINS;
+import static hioa.android.chess.DBAdapter.WORST_STREAK;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+/**
+ * The changes made to the schema of the database since its first version
+ * <p>
+ * Every change is a step that takes the database from one version to the
+ * next. A new database is created as version 1 and then upgraded through all
+ * the steps, the same way as an old one, so the steps are run on every new
+ * install and an upgraded database always ends up like a new one.
+ * <p>
+ * SQLiteOpenHelper runs the whole upgrade in one transaction and only stores
+ * the new version if it succeeds. A step that fails leaves the database as it
+ * was, and the upgrade is tried again the next time it's opened.
+ * <p>
+ * A step must be quick, since the database can't be used until it's done.
+ * Work that grows with the number of games, like converting old rows, is done
+ * by a backfill instead. Backfills run in small batches on the thread of
+ * {@link DBWriter} after the database is opened, so the games played in the
+ * meantime are written between the batches. A backfill must find the rows it
+ * hasn't converted yet from the rows themselves, so that one that is
+ * interrupted simply continues the next time.
+ * 
+ * @author Lars Staberget
+ * @version 2013-11-24
+ */
+
+class DBMigrations {
+
+	/**
+	 * The number of rows a backfill converts in each transaction
+	 */
+	static final int BACKFILL_BATCH = 200;
+
+	/**
+	 * STEPS[i] upgrades the database from version i + 1 to version i + 2.
+	 * Steps are never changed once released, new ones are added to the end.
+	 */
+	private static final Step[] STEPS = {
+			// 1 -> 2: A saved game without a snapshot is rebuilt from its moves
+			new Step() {
+				@Override
+				void upgrade(SQLiteDatabase db) {
+					db.execSQL("alter table " + TABLE_POSITION + " add column " + SNAPSHOT + " blob;");
+				}
+			},
+			// 2 -> 3: The journal of moves made since the game state was stored
+			new Step() {
+				@Override
+				void upgrade(SQLiteDatabase db) {
+					db.execSQL("create table " + TABLE_JOURNAL + " (" + PLY + " integer primary key, " + MOVES
+							+ " text, " + WHITETIME + " integer, " + BLACKTIME + " integer);");
+				}
+			},
+			// 3 -> 4: Typed and indexed columns for the game table. The old
+			// columns are kept, and the old games are converted by GAME_COLUMNS
+			new Step() {
+				@Override
+				void upgrade(SQLiteDatabase db) {
+					db.execSQL("create table " + TABLE_PLAYER + " (" + ID + " integer primary key autoincrement, "
+							+ NAME + " text not null unique);");
+					db.execSQL("alter table " + TABLE + " add column " + PLAYED_AT + " integer;");
+					db.execSQL("alter table " + TABLE + " add column " + RESULT_CODE + " integer;");
+					db.execSQL("alter table " + TABLE + " add column " + WHITE_ID + " integer references "
+							+ TABLE_PLAYER + ";");
+					db.execSQL("alter table " + TABLE + " add column " + BLACK_ID + " integer references "
+							+ TABLE_PLAYER + ";");
+					// Counting the results, of all games or of one player, is
+					// answered from the indexes alone
+					db.execSQL("create index game_result on " + TABLE + " (" + RESULT_CODE + ");");
+					db.execSQL("create index game_white on " + TABLE + " (" + WHITE_ID + ", " + RESULT_CODE + ");");
+					db.execSQL("create index game_black on " + TABLE + " (" + BLACK_ID + ", " + RESULT_CODE + ");");
+					db.execSQL("create index game_date on " + TABLE + " (" + PLAYED_AT + ");");
+				}
+			},
+			// 4 -> 5: Summaries of the results, kept up to date by triggers
+			new Step() {
+				@Override
+				void upgrade(SQLiteDatabase db) {
+					db.execSQL("create table " + TABLE_RESULT_STATS + " (" + RESULT_CODE + " integer primary key, "
+							+ GAMES + " integer not null default 0);");
+					db.execSQL("create table " + TABLE_PLAYER_STATS + " (" + PLAYER_ID + " integer primary key "
+							+ "references " + TABLE_PLAYER + ", " + WINS + " integer not null default 0, " + LOSSES
+							+ " integer not null default 0, " + DRAWS + " integer not null default 0);");
+					// The games converted so far. The rest are counted by the
+					// trigger as GAME_COLUMNS converts them
+					db.execSQL("insert into " + TABLE_RESULT_STATS + " select " + RESULT_CODE + ", count(*) from "
+							+ TABLE + " where " + RESULT_CODE + " is not null group by " + RESULT_CODE + ";");
+					db.execSQL("insert into " + TABLE_PLAYER_STATS + " select id, sum(won), sum(lost), sum(drawn) "
+							+ "from (select " + WHITE_ID + " as id, " + RESULT_CODE + " = " + DBAdapter.WHITE_WON
+							+ " as won, " + RESULT_CODE + " = " + DBAdapter.BLACK_WON + " as lost, " + RESULT_CODE
+							+ " in " + DRAWS_V5 + " as drawn from " + TABLE + " where " + RESULT_CODE
+							+ " is not null union all select " + BLACK_ID + ", " + RESULT_CODE + " = "
+							+ DBAdapter.BLACK_WON + ", " + RESULT_CODE + " = " + DBAdapter.WHITE_WON + ", "
+							+ RESULT_CODE + " in " + DRAWS_V5 + " from " + TABLE + " where " + RESULT_CODE
+							+ " is not null) group by id;");
+					// A game is counted when it's inserted with a result, or
+					// when an old game gets its result from GAME_COLUMNS
+					db.execSQL("create trigger game_counted_insert after insert on " + TABLE + " when new."
+							+ RESULT_CODE + " is not null begin " + countGameV5() + " end;");
+					db.execSQL("create trigger game_counted_update after update of " + RESULT_CODE + " on " + TABLE
+							+ " when old." + RESULT_CODE + " is null and new." + RESULT_CODE + " is not null begin "
+							+ countGameV5() + " end;");
+				}
+			},
+			// 5 -> 6: Results of each player by color, head to head, streaks
+			// and the length of the games
+			new Step() {
+				@Override
+				void upgrade(SQLiteDatabase db) {
+					db.execSQL("alter table " + TABLE + " add column " + PLIES + " integer;");
+					db.execSQL("alter table " + TABLE_PLAYER_STATS + " add column " + STREAK
+							+ " integer not null default 0;");
+					db.execSQL("alter table " + TABLE_PLAYER_STATS + " add column " + BEST_STREAK
+							+ " integer not null default 0;");
+					db.execSQL("alter table " + TABLE_PLAYER_STATS + " add column " + WORST_STREAK
+							+ " integer not null default 0;");
+					db.execSQL("create table " + TABLE_PLAYER_RESULTS + " (" + PLAYER_ID + " integer references "
+							+ TABLE_PLAYER + ", " + COLOR + " integer, " + RESULT_CODE + " integer, " + GAMES
+							+ " integer not null default 0, " + MEASURED_GAMES + " integer not null default 0, " + PLIES
+							+ " integer not null default 0, primary key (" + PLAYER_ID + ", " + COLOR + ", "
+							+ RESULT_CODE + "));");
+					db.execSQL("create table " + TABLE_HEAD_TO_HEAD + " (" + PLAYER_ID + " integer references "
+							+ TABLE_PLAYER + ", " + OPPONENT_ID + " integer references " + TABLE_PLAYER + ", " + WINS
+							+ " integer not null default 0, " + LOSSES + " integer not null default 0, " + DRAWS
+							+ " integer not null default 0, primary key (" + PLAYER_ID + ", " + OPPONENT_ID + "));");
+					db.execSQL("insert into " + TABLE_PLAYER_RESULTS + " (" + PLAYER_ID + ", " + COLOR + ", "
+							+ RESULT_CODE + ", " + GAMES + ") select " + WHITE_ID + ", " + Chesspiece.WHITE + ", "
+							+ RESULT_CODE + ", count(*) from " + TABLE + " where " + RESULT_CODE
+							+ " is not null group by " + WHITE_ID + ", " + RESULT_CODE + " union all select " + BLACK_ID
+							+ ", " + Chesspiece.BLACK + ", " + RESULT_CODE + ", count(*) from " + TABLE + " where "
+							+ RESULT_CODE + " is not null group by " + BLACK_ID + ", " + RESULT_CODE + ";");
+					db.execSQL("insert into " + TABLE_HEAD_TO_HEAD + " select player, opponent, sum(won), sum(lost), "
+							+ "sum(drawn) from (select " + WHITE_ID + " as player, " + BLACK_ID + " as opponent, "
+							+ RESULT_CODE + " = " + DBAdapter.WHITE_WON + " as won, " + RESULT_CODE + " = "
+							+ DBAdapter.BLACK_WON + " as lost, " + RESULT_CODE + " in " + DRAWS_V5 + " as drawn from "
+							+ TABLE + " where " + RESULT_CODE + " is not null union all select " + BLACK_ID + ", "
+							+ WHITE_ID + ", " + RESULT_CODE + " = " + DBAdapter.BLACK_WON + ", " + RESULT_CODE + " = "
+							+ DBAdapter.WHITE_WON + ", " + RESULT_CODE + " in " + DRAWS_V5 + " from " + TABLE
+							+ " where " + RESULT_CODE + " is not null) group by player, opponent;");
+					countStreaks(db);
+					db.execSQL("drop trigger game_counted_insert;");
+					db.execSQL("drop trigger game_counted_update;");
+					db.execSQL("create trigger game_counted_insert after insert on " + TABLE + " when new."
+							+ RESULT_CODE + " is not null begin " + countGameV5() + countGameV6() + " end;");
+					db.execSQL("create trigger game_counted_update after update of " + RESULT_CODE + " on " + TABLE
+							+ " when old." + RESULT_CODE + " is null and new." + RESULT_CODE + " is not null begin "
+							+ countGameV5() + countGameV6() + " end;");
+				}
+			} };
+
+	/**
+	 * The results that are draws, as they were in version 5
+	 */
+	private static final String DRAWS_V5 = "(" + DBAdapter.DRAW_STALEMATE + ", " + DBAdapter.DRAW_REPETITION
+			+ ", " + DBAdapter.DRAW_CLAIMED + ", " + DBAdapter.DRAW_AGREED + ")";
+
+	/**
+	 * The body of the triggers of version 5, which add the game "new" to the
+	 * summaries
+	 */
+	private static String countGameV5() {
+		return "insert or ignore into " + TABLE_RESULT_STATS + " (" + RESULT_CODE + ") values (new." + RESULT_CODE
+				+ "); update " + TABLE_RESULT_STATS + " set " + GAMES + " = " + GAMES + " + 1 where " + RESULT_CODE
+				+ " = new." + RESULT_CODE + "; insert or ignore into " + TABLE_PLAYER_STATS + " (" + PLAYER_ID
+				+ ") values (new." + WHITE_ID + "); insert or ignore into " + TABLE_PLAYER_STATS + " (" + PLAYER_ID
+				+ ") values (new." + BLACK_ID + "); update " + TABLE_PLAYER_STATS + " set " + WINS + " = " + WINS
+				+ " + (new." + RESULT_CODE + " = " + DBAdapter.WHITE_WON + "), " + LOSSES + " = " + LOSSES
+				+ " + (new." + RESULT_CODE + " = " + DBAdapter.BLACK_WON + "), " + DRAWS + " = " + DRAWS
+				+ " + (new." + RESULT_CODE + " in " + DRAWS_V5 + ") where " + PLAYER_ID + " = new." + WHITE_ID
+				+ "; update " + TABLE_PLAYER_STATS + " set " + WINS + " = " + WINS + " + (new." + RESULT_CODE
+				+ " = " + DBAdapter.BLACK_WON + "), " + LOSSES + " = " + LOSSES + " + (new." + RESULT_CODE + " = "
+				+ DBAdapter.WHITE_WON + "), " + DRAWS + " = " + DRAWS + " + (new." + RESULT_CODE + " in "
+				+ DRAWS_V5 + ") where " + PLAYER_ID + " = new." + BLACK_ID + ";";
+	}
+
+	/**
+	 * The statements added to the triggers in version 6, which add the game
+	 * "new" to the results by color, the head to head results and the streaks
+	 */
+	private static String countGameV6() {
+		StringBuilder sql = new StringBuilder();
+		// White first, like countStreaks(), since the order changes the streak
+		// of a player who plays both sides
+		for (int color = Chesspiece.WHITE; color >= Chesspiece.BLACK; color--) {
+			String player = "new." + (color == Chesspiece.WHITE ? WHITE_ID : BLACK_ID);
+			String opponent = "new." + (color == Chesspiece.WHITE ? BLACK_ID : WHITE_ID);
+			String won = "(new." + RESULT_CODE + " = "
+					+ (color == Chesspiece.WHITE ? DBAdapter.WHITE_WON : DBAdapter.BLACK_WON) + ")";
+			String lost = "(new." + RESULT_CODE + " = "
+					+ (color == Chesspiece.WHITE ? DBAdapter.BLACK_WON : DBAdapter.WHITE_WON) + ")";
+			String drawn = "(new." + RESULT_CODE + " in " + DRAWS_V5 + ")";
+			sql.append(" insert or ignore into " + TABLE_PLAYER_RESULTS + " (" + PLAYER_ID + ", " + COLOR + ", "
+					+ RESULT_CODE + ") values (" + player + ", " + color + ", new." + RESULT_CODE + ");");
+			// The length of the games played before version 6 isn't known
+			sql.append(" update " + TABLE_PLAYER_RESULTS + " set " + GAMES + " = " + GAMES + " + 1, " + MEASURED_GAMES
+					+ " = " + MEASURED_GAMES + " + (new." + PLIES + " is not null), " + PLIES + " = " + PLIES
+					+ " + coalesce(new." + PLIES + ", 0) where " + PLAYER_ID + " = " + player + " and " + COLOR
+					+ " = " + color + " and " + RESULT_CODE + " = new." + RESULT_CODE + ";");
+			sql.append(" insert or ignore into " + TABLE_HEAD_TO_HEAD + " (" + PLAYER_ID + ", " + OPPONENT_ID
+					+ ") values (" + player + ", " + opponent + ");");
+			sql.append(" update " + TABLE_HEAD_TO_HEAD + " set " + WINS + " = " + WINS + " + " + won + ", "
+					+ LOSSES + " = " + LOSSES + " + " + lost + ", " + DRAWS + " = " + DRAWS + " + " + drawn
+					+ " where " + PLAYER_ID + " = " + player + " and " + OPPONENT_ID + " = " + opponent + ";");
+			// Positive streaks are wins in a row, negative are losses. The
+			// best and worst are updated from the new streak
+			sql.append(" update " + TABLE_PLAYER_STATS + " set " + STREAK + " = case when " + won + " then max("
+					+ STREAK + ", 0) + 1 when " + lost + " then min(" + STREAK + ", 0) - 1 when " + drawn
+					+ " then 0 else " + STREAK + " end where " + PLAYER_ID + " = " + player + ";");
+			sql.append(" update " + TABLE_PLAYER_STATS + " set " + BEST_STREAK + " = max(" + BEST_STREAK + ", "
+					+ STREAK + "), " + WORST_STREAK + " = min(" + WORST_STREAK + ", " + STREAK + ") where "
+					+ PLAYER_ID + " = " + player + ";");
+		}
+		return sql.toString();
+	}
+
+	/**
+	 * Sets the streaks of version 6 from the games converted so far, in the
+	 * order they were played. Streaks depend on the order of the games, so
+	 * unlike the other summaries they can't be counted with GROUP BY. This
+	 * reads the result of each game once.
+	 * <p>
+	 * The triggers add the games to the streaks in the order they get their
+	 * result, which for the games converted by GAME_COLUMNS isn't the order
+	 * they were played in. The streaks are therefore counted again when it
+	 * has converted the last game.
+	 */
+	private static void countStreaks(SQLiteDatabase db) {
+		Map<Long, int[]> streaks = new HashMap<Long, int[]>();
+		Cursor cursor = db.rawQuery("select " + WHITE_ID + ", " + BLACK_ID + ", " + RESULT_CODE + " from " + TABLE
+				+ " where " + RESULT_CODE + " is not null order by " + PLAYED_AT + ", " + ID, null);
+		try {
+			while (cursor.moveToNext()) {
+				int result = cursor.getInt(2);
+				int white = 0;
+				if (result == DBAdapter.WHITE_WON) {
+					white = 1;
+				} else if (result == DBAdapter.BLACK_WON) {
+					white = -1;
+				} else if (result == DBAdapter.UNKNOWN_RESULT) {
+					continue;
+				}
+				addToStreak(streaks, cursor.getLong(0), white);
+				addToStreak(streaks, cursor.getLong(1), -white);
+			}
+		} finally {
+			cursor.close();
+		}
+		db.execSQL("update " + TABLE_PLAYER_STATS + " set " + STREAK + " = 0, " + BEST_STREAK + " = 0, "
+				+ WORST_STREAK + " = 0;");
+		for (Map.Entry<Long, int[]> entry : streaks.entrySet()) {
+			int[] streak = entry.getValue();
+			db.execSQL("update " + TABLE_PLAYER_STATS + " set " + STREAK + " = " + streak[0] + ", " + BEST_STREAK
+					+ " = " + streak[1] + ", " + WORST_STREAK + " = " + streak[2] + " where " + PLAYER_ID + " = "
+					+ entry.getKey() + ";");
+		}
+	}
+
+	/**
+	 * @param outcome
+	 *            1 for a win, -1 for a loss and 0 for a draw
+	 */
+	private static void addToStreak(Map<Long, int[]> streaks, long player, int outcome) {
+		int[] streak = streaks.get(player);
+		if (streak == null) {
+			streak = new int[3];
+			streaks.put(player, streak);
+		}
+		if (outcome > 0) {
+			streak[0] = Math.max(streak[0], 0) + 1;
+		} else if (outcome < 0) {
+			streak[0] = Math.min(streak[0], 0) - 1;
+		} else {
+			streak[0] = 0;
+		}
+		streak[1] = Math.max(streak[1], streak[0]);
+		streak[2] = Math.min(streak[2], streak[0]);
+	}
+
+	/**
+	 * Fills the columns added in version 4 for the games played before it. A
+	 * converted game always gets a date, so it isn't converted twice. The
+	 * batch that converts the last game also counts the streaks again, since
+	 * games played during the backfill were added to them before older games.
+	 */
+	private static final Backfill GAME_COLUMNS = new Backfill() {
+		@Override
+		int run(SQLiteDatabase db, int limit) {
+			Cursor cursor = db.rawQuery("select min(" + ID + "), max(" + ID + "), count(*) from (select " + ID
+					+ " from " + TABLE + " where " + PLAYED_AT + " is null order by " + ID + " limit " + limit + ")",
+					null);
+			String batch;
+			int rows;
+			try {
+				cursor.moveToFirst();
+				rows = cursor.getInt(2);
+				batch = " where " + PLAYED_AT + " is null and " + ID + " between " + cursor.getLong(0) + " and "
+						+ cursor.getLong(1);
+			} finally {
+				cursor.close();
+			}
+			if (rows == 0) {
+				return 0;
+			}
+			db.execSQL("insert or ignore into " + TABLE_PLAYER + " (" + NAME + ") select coalesce(" + WHITE_PLAYER
+					+ ", '') from " + TABLE + batch + " union select coalesce(" + BLACK_PLAYER + ", '') from "
+					+ TABLE + batch + ";");
+			// The old dates are days in local time, stored as text, and the old
+			// results are the names the result constants used to have
+			db.execSQL("update " + TABLE + " set " + PLAYED_AT + " = coalesce(strftime('%s', " + DATE
+					+ ", 'utc') * 1000, 0), " + RESULT_CODE + " = case " + RESULT + " when 'white_won' then "
+					+ DBAdapter.WHITE_WON + " when 'black_won' then " + DBAdapter.BLACK_WON
+					+ " when 'draw_stalemate' then " + DBAdapter.DRAW_STALEMATE + " when 'draw_repetition' then "
+					+ DBAdapter.DRAW_REPETITION + " when 'draw_claimed' then " + DBAdapter.DRAW_CLAIMED
+					+ " when 'draw_agreed' then " + DBAdapter.DRAW_AGREED + " else " + DBAdapter.UNKNOWN_RESULT
+					+ " end, " + WHITE_ID + " = (select " + ID + " from " + TABLE_PLAYER + " where " + NAME
+					+ " = coalesce(" + WHITE_PLAYER + ", '')), " + BLACK_ID + " = (select " + ID + " from "
+					+ TABLE_PLAYER + " where " + NAME + " = coalesce(" + BLACK_PLAYER + ", ''))" + batch + ";");
+			if (!hasUnconvertedGames(db)) {
+				countStreaks(db);
+			}
+			return rows;
+		}
+	};
+
+	private static boolean hasUnconvertedGames(SQLiteDatabase db) {
+		Cursor cursor = db.rawQuery("select exists (select 1 from " + TABLE + " where " + PLAYED_AT + " is null)",
+				null);
+		try {
+			return cursor.moveToFirst() && cursor.getInt(0) != 0;
+		} finally {
+			cursor.close();
+		}
+	}
+
+	/**
+	 * The backfills that are run after the database is opened, in order
+	 */
+	private static final Backfill[] BACKFILLS = { GAME_COLUMNS };
+
+	/**
+	 * The version of the database after all the steps
+	 */
+	static final int VERSION = STEPS.length + 1;
+
+	/**
+	 * Creates the database as it was in version 1, and upgrades it to the
+	 * current version
+	 * 
+	 * @param db
+	 *            The new, empty database
+	 */
+	static void create(SQLiteDatabase db) {
+		db.execSQL("create table " + TABLE + " (" + ID + " integer primary key autoincrement, " + WHITE_PLAYER
+				+ " text, " + BLACK_PLAYER + " text, " + DATE + " date, " + RESULT + " text, " + MOVES + " text);");
+		db.execSQL("create table " + TABLE_POSITION + " (" + ID + " integer primary key autoincrement, "
+				+ WHITE_PLAYER + " text, " + BLACK_PLAYER + " text, " + WHITETIME + " text, " + BLACKTIME + " text, "
+				+ BONUS + " text, " + TIME + " text, " + MOVES + " text);");
+		upgrade(db, 1, VERSION);
+	}
+
+	/**
+	 * Runs the steps between two versions in order
+	 * 
+	 * @param db
+	 *            The database, inside the transaction of SQLiteOpenHelper
+	 * @param oldVersion
+	 *            The version the database is at
+	 * @param newVersion
+	 *            The version to upgrade to
+	 */
+	static void upgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
+		for (int version = oldVersion; version < newVersion; version++) {
+			STEPS[version - 1].upgrade(db);
+		}
+	}
+
+	/**
+	 * Runs one batch of the first backfill that isn't finished, in its own
+	 * transaction
+	 * 
+	 * @param db
+	 *            The database
+	 * @return true if there may be more to do, false if every backfill is
+	 *         finished
+	 */
+	static boolean backfill(SQLiteDatabase db) {
+		for (int i = 0; i < BACKFILLS.length; i++) {
+			int rows;
+			db.beginTransaction();
+			try {
+				rows = BACKFILLS[i].run(db, BACKFILL_BATCH);
+				db.setTransactionSuccessful();
+			} finally {
+				db.endTransaction();
+			}
+			if (rows > 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * A change of the schema from one version to the next
+	 */
+	static abstract class Step {
+		abstract void upgrade(SQLiteDatabase db);
+	}
+
+	/**
+	 * A conversion of existing rows that is too slow to be part of a step
+	 */
+	static abstract class Backfill {
+		/**
+		 * Converts some of the rows that haven't been converted yet
+		 * 
+		 * @param db
+		 *            The database, inside a transaction
+		 * @param limit
+		 *            The highest number of rows to convert
+		 * @return The number of rows converted, 0 when there are none left
+		 */
+		abstract int run(SQLiteDatabase db, int limit);
+	}
+
+	private DBMigrations() {
+	}
+}
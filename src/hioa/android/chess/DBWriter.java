@@ -0,0 +1,361 @@
+package hioa.android.chess;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import android.content.Context;
+import android.database.SQLException;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+/**
+ * Writes to the database on a background thread, so that making a move or
+ * pressing a button never waits for SQLite
+ * <p>
+ * Writes are queued and applied in order by a single thread. Everything about
+ * the game in progress that is waiting when the thread wakes up is written in
+ * one transaction. Writes that a later write makes pointless are dropped from
+ * the queue: a stored game state replaces the moves and times queued before
+ * it, clearing the game state replaces everything about the game in progress,
+ * and only the latest times are kept. Game results are never dropped from the
+ * queue, and each is written in a transaction of its own after the game in
+ * progress, so a failing write of the game in progress can't take a finished
+ * game with it.
+ * <p>
+ * Reads on the UI thread go through read(), which runs them on the writer
+ * thread after the writes queued before them and hands the result back to
+ * the UI thread, so they see every write without the UI waiting for them.
+ * <p>
+ * The thread also runs the backfills of {@link DBMigrations}, one batch at a
+ * time, with the queued writes in between.
+ * 
+ * @author Lars Staberget
+ * @version 2013-11-24
+ */
+
+public class DBWriter {
+
+	private static final String TAG = "DBWriter";
+	/**
+	 * How long flush() waits for the queue to be written before giving up
+	 */
+	public static final long FLUSH_TIMEOUT = 2000;
+
+	private static final int STATE = 0, MOVE = 1, TIMES = 2, CLEAR = 3, RESULT = 4;
+
+	private static DBWriter sInstance;
+
+	private final Context mContext;
+	private final ExecutorService mExecutor;
+	private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+	private final List<Write> mPending = new ArrayList<Write>();
+	private boolean mScheduled;
+	/**
+	 * True if a write has failed since the last flush(). Only used on the
+	 * writer thread.
+	 */
+	private boolean mFailed;
+	private DBAdapter mDatabase;
+
+	/**
+	 * Gets the writer shared by the whole application
+	 * 
+	 * @param context
+	 *            Any context of the application
+	 * @return The writer
+	 */
+	public static synchronized DBWriter getInstance(Context context) {
+		if (sInstance == null) {
+			sInstance = new DBWriter(context.getApplicationContext());
+		}
+		return sInstance;
+	}
+
+	private DBWriter(Context context) {
+		mContext = context;
+		mExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, TAG);
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		mExecutor.execute(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					if (database().backfill()) {
+						// Go to the back of the line, so the writes queued in
+						// the meantime don't wait for the whole backfill
+						mExecutor.execute(this);
+					}
+				} catch (SQLException e) {
+					// Tried again the next time the application starts
+					Log.e(TAG, "Backfill failed", e);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Gets the database, opening it the first time. Only called on the writer
+	 * thread.
+	 */
+	private DBAdapter database() {
+		if (mDatabase == null) {
+			mDatabase = DBAdapter.getInstance(mContext);
+		}
+		return mDatabase;
+	}
+
+	/**
+	 * Queues {@link DBAdapter#insertGameState}
+	 */
+	public void insertGameState(final String moves, final String whiteName, final String blackName,
+			final String whiteTime, final String blackTime, final String bonus, final String time,
+			final byte[] snapshot) {
+		enqueue(new Write(STATE) {
+			@Override
+			void apply(DBAdapter database) {
+				database.insertGameState(moves, whiteName, blackName, whiteTime, blackTime, bonus, time, snapshot);
+			}
+		});
+	}
+
+	/**
+	 * Queues {@link DBAdapter#appendMove}
+	 */
+	public void appendMove(final int ply, final String move, final long whiteTime, final long blackTime) {
+		enqueue(new Write(MOVE) {
+			@Override
+			void apply(DBAdapter database) {
+				database.appendMove(ply, move, whiteTime, blackTime);
+			}
+		});
+	}
+
+	/**
+	 * Queues {@link DBAdapter#updateTimes}
+	 */
+	public void updateTimes(final String whiteTime, final String blackTime) {
+		enqueue(new Write(TIMES) {
+			@Override
+			void apply(DBAdapter database) {
+				database.updateTimes(whiteTime, blackTime);
+			}
+		});
+	}
+
+	/**
+	 * Queues {@link DBAdapter#clearGameState}
+	 */
+	public void clearGameState() {
+		enqueue(new Write(CLEAR) {
+			@Override
+			void apply(DBAdapter database) {
+				database.clearGameState();
+			}
+		});
+	}
+
+	/**
+	 * Queues {@link DBAdapter#insertGameResult}
+	 */
+	public void insertGameResult(final String whiteName, final String blackName, final String moves,
+			final int plies, final int result, final Date date) {
+		enqueue(new Write(RESULT) {
+			@Override
+			void apply(DBAdapter database) {
+				database.insertGameResult(whiteName, blackName, moves, plies, result, date);
+			}
+		});
+	}
+
+	/**
+	 * Waits until every write queued so far is in the database, or until
+	 * FLUSH_TIMEOUT has passed
+	 * 
+	 * @return true if the queue was written in time, and no write has failed
+	 *         since the last flush
+	 */
+	public boolean flush() {
+		Future<Boolean> done = mExecutor.submit(new Callable<Boolean>() {
+			@Override
+			public Boolean call() {
+				drain();
+				boolean written = !mFailed;
+				mFailed = false;
+				return written;
+			}
+		});
+		try {
+			return done.get(FLUSH_TIMEOUT, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} catch (ExecutionException e) {
+			Log.e(TAG, "Flush failed", e.getCause());
+		} catch (TimeoutException e) {
+			Log.w(TAG, "Flush timed out");
+		}
+		return false;
+	}
+
+	/**
+	 * Reads from the database on the writer thread, after every write queued
+	 * so far, and hands the result to the UI thread. The read may wait for
+	 * one batch of a backfill, but the UI thread never waits for it.
+	 * 
+	 * @param read
+	 *            The read, and what to do with its result
+	 */
+	public <T> void read(final Read<T> read) {
+		mExecutor.execute(new Runnable() {
+			@Override
+			public void run() {
+				drain();
+				final T result;
+				try {
+					result = read.read(database());
+				} catch (SQLException e) {
+					Log.e(TAG, "Read failed", e);
+					return;
+				}
+				mMainHandler.post(new Runnable() {
+					@Override
+					public void run() {
+						read.onRead(result);
+					}
+				});
+			}
+		});
+	}
+
+	private void enqueue(Write write) {
+		synchronized (mPending) {
+			if (write.mKind == STATE || write.mKind == CLEAR) {
+				// Both replace the stored game, and everything queued for it
+				for (int i = mPending.size() - 1; i >= 0; i--) {
+					if (mPending.get(i).mKind != RESULT) {
+						mPending.remove(i);
+					}
+				}
+			} else if (write.mKind == TIMES) {
+				for (int i = mPending.size() - 1; i >= 0; i--) {
+					if (mPending.get(i).mKind == TIMES) {
+						mPending.remove(i);
+					}
+				}
+			}
+			mPending.add(write);
+			if (mScheduled) {
+				return;
+			}
+			mScheduled = true;
+		}
+		mExecutor.execute(new Runnable() {
+			@Override
+			public void run() {
+				drain();
+			}
+		});
+	}
+
+	/**
+	 * Writes the game in progress from the queue in one transaction, and each
+	 * game result in one of its own. Only called on the writer thread.
+	 */
+	private void drain() {
+		List<Write> game = new ArrayList<Write>();
+		List<Write> results = new ArrayList<Write>();
+		synchronized (mPending) {
+			mScheduled = false;
+			for (Write write : mPending) {
+				if (write.mKind == RESULT) {
+					results.add(write);
+				} else {
+					game.add(write);
+				}
+			}
+			mPending.clear();
+		}
+		write(game);
+		for (Write result : results) {
+			write(Collections.singletonList(result));
+		}
+	}
+
+	/**
+	 * Applies writes in one transaction
+	 */
+	private void write(List<Write> writes) {
+		if (writes.isEmpty()) {
+			return;
+		}
+		try {
+			DBAdapter database = database();
+			database.beginTransaction();
+			try {
+				for (int i = 0; i < writes.size(); i++) {
+					writes.get(i).apply(database);
+				}
+				database.setTransactionSuccessful();
+			} finally {
+				database.endTransaction();
+			}
+		} catch (SQLException e) {
+			// Nothing on the UI waits for the writes, so the best that can be
+			// done is to leave a trace, and to tell the next flush()
+			Log.e(TAG, "Could not write " + writes.size() + " queued writes", e);
+			mFailed = true;
+		}
+	}
+
+	/**
+	 * A read given to read()
+	 */
+	public static abstract class Read<T> {
+
+		/**
+		 * Reads from the database. Called on the writer thread.
+		 * 
+		 * @param database
+		 *            The database, with every write queued before the read
+		 * @return The result handed to onRead()
+		 */
+		protected abstract T read(DBAdapter database);
+
+		/**
+		 * Uses the result of read(). Called on the UI thread, unless read()
+		 * failed.
+		 * 
+		 * @param result
+		 *            The result
+		 */
+		protected abstract void onRead(T result);
+	}
+
+	/**
+	 * A write waiting in the queue
+	 */
+	private static abstract class Write {
+		final int mKind;
+
+		Write(int kind) {
+			mKind = kind;
+		}
+
+		abstract void apply(DBAdapter database);
+	}
+}
@@ -1,6 +1,7 @@
 package hioa.android.chess;
 
 import java.util.Date;
+import java.util.concurrent.Executor;
 
 import android.annotation.SuppressLint;
 import android.app.Activity;
@@ -13,7 +14,9 @@ import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.Drawable;
 import android.media.AudioManager;
 import android.os.Bundle;
+import android.os.Handler;
 import android.preference.PreferenceManager;
+import android.util.Log;
 import android.view.Menu;
 import android.view.MenuItem;
 import android.view.View;
@@ -32,9 +35,18 @@ import android.widget.TextView;
  * @version 2013-11-23
  */
 
-public class GameActivity extends Activity {
+public class GameActivity extends Activity implements ChessboardListener {
+
+	private static final String TAG = "GameActivity";
+	/**
+	 * How long onDestroy() waits for the clock to finish a call to this
+	 * activity
+	 */
+	private static final long CLOCK_SHUTDOWN_TIMEOUT = 500;
 
 	private PlayerFrame mWhiteFrame, mBlackFrame;
+	private ClockRenderer mClockRenderer;
+	private ChessboardView mView;
 	private String mWhiteName, mBlackName;
 	private Chessboard mChessboard;
 	private long mStartTime;
@@ -45,6 +57,18 @@ public class GameActivity extends Activity {
 	private boolean mRotate;
 	private AlertDialog mDialog;
 	private boolean mAlwaysOn;
+	private DBWriter mWriter;
+	private final Handler mHandler = new Handler();
+	/**
+	 * Runs the commands that change the game on the UI thread, after the
+	 * messages already waiting there. The moves are made on the same thread.
+	 */
+	private final Executor mGameExecutor = new Executor() {
+		@Override
+		public void execute(Runnable command) {
+			mHandler.post(command);
+		}
+	};
 
 	/**
 	 * Array of the icons for the various chesspieces.
@@ -66,9 +90,11 @@ public class GameActivity extends Activity {
 		super.onCreate(savedInstanceState);
 		setContentView(R.layout.activity_game);
 
+		mWriter = DBWriter.getInstance(this);
 		loadIcons();
 		setVolumeControlStream(AudioManager.STREAM_MUSIC);
 		ChessboardView board = (ChessboardView) findViewById(R.id.chessboard);
+		mView = board;
 		board.setActivity(this);
 		board.placePieces();
 		mWhiteFrame = (PlayerFrame) findViewById(R.id.whiteFrame);
@@ -76,6 +102,7 @@ public class GameActivity extends Activity {
 
 		mWhiteFrame.setActivity(this);
 		mBlackFrame.setActivity(this);
+		mClockRenderer = new ClockRenderer(mWhiteFrame, mBlackFrame);
 
 		mWhiteFrame.setKingIcon(Chesspiece.WHITE);
 		mBlackFrame.setKingIcon(Chesspiece.BLACK);
@@ -92,24 +119,21 @@ public class GameActivity extends Activity {
 			public void onClick(View v) {
 				mChessboard.stopClock();
 				int color;
-				if (mChessboard.mView.getCurrentPlayer() == Chesspiece.WHITE) {
+				if (mView.getCurrentPlayer() == Chesspiece.WHITE) {
 					color = Chesspiece.BLACK;
 				} else {
 					color = Chesspiece.WHITE;
 				}
-				mChessboard.mView.endTheGame(ChessboardView.WINRESIGN, color);
-				setCheckText(mChessboard.mView.getCurrentPlayer(), PlayerFrame.RESIGNED);
+				mView.endTheGame(ChessboardView.WINRESIGN, color);
+				setCheckText(mView.getCurrentPlayer(), PlayerFrame.RESIGNED);
 				setCheckText(color, PlayerFrame.WINNER);
-				DBAdapter database = new DBAdapter(GameActivity.this);
-				database.open();
-				String winner;
+				int winner;
 				if (color == Chesspiece.WHITE) {
 					winner = DBAdapter.WHITE_WON;
 				} else {
 					winner = DBAdapter.BLACK_WON;
 				}
-				database.insertGameResult(mWhiteName, mBlackName, mChessboard.mPositionHashFactory.getMoves(), winner,
-						new Date());
+				insertGameResult(mChessboard.getState().getMoves(), winner);
 			}
 
 		});
@@ -117,9 +141,7 @@ public class GameActivity extends Activity {
 		((Button) findViewById(R.id.btn_quit)).setOnClickListener(new OnClickListener() {
 			@Override
 			public void onClick(View v) {
-				DBAdapter database = new DBAdapter(GameActivity.this);
-				database.open();
-				database.clearGameState();
+				mWriter.clearGameState();
 				finish();
 			}
 
@@ -259,7 +281,7 @@ public class GameActivity extends Activity {
 					mDialog = new AlertDialog.Builder(GameActivity.this).create();
 					mDialog.setTitle(getResources().getString(R.string.title_draw_offer));
 					String player;
-					if (mChessboard.mView.getCurrentPlayer() == Chesspiece.WHITE) {
+					if (mView.getCurrentPlayer() == Chesspiece.WHITE) {
 						player = mWhiteName;
 					} else {
 						player = mBlackName;
@@ -268,15 +290,12 @@ public class GameActivity extends Activity {
 					mDialog.setButton(AlertDialog.BUTTON_POSITIVE, getString(R.string.btn_accept),
 							new DialogInterface.OnClickListener() {
 								public void onClick(DialogInterface dialog, int which) {
-									mChessboard.mView.endTheGame(ChessboardView.DRAWAGREED,
-											mChessboard.mView.getCurrentPlayer());
+									mView.endTheGame(ChessboardView.DRAWAGREED,
+											mView.getCurrentPlayer());
 									setCheckText(Chesspiece.WHITE, PlayerFrame.DRAW);
 									setCheckText(Chesspiece.BLACK, PlayerFrame.DRAW);
-									DBAdapter database = new DBAdapter(GameActivity.this);
-									database.open();
-									database.insertGameResult(mWhiteName, mBlackName,
-											mChessboard.mPositionHashFactory.getMoves(), DBAdapter.DRAW_AGREED,
-											new Date());
+									insertGameResult(mChessboard.getState().getMoves(),
+											DBAdapter.DRAW_AGREED);
 									mDialog.dismiss();
 									mDialog = null;
 								}
@@ -300,13 +319,10 @@ public class GameActivity extends Activity {
 			button.setOnClickListener(new OnClickListener() {
 				@Override
 				public void onClick(View v) {
-					mChessboard.mView.endTheGame(ChessboardView.DRAWCLAIMED, mChessboard.mView.getCurrentPlayer());
+					mView.endTheGame(ChessboardView.DRAWCLAIMED, mView.getCurrentPlayer());
 					setCheckText(Chesspiece.WHITE, PlayerFrame.DRAW);
 					setCheckText(Chesspiece.BLACK, PlayerFrame.DRAW);
-					DBAdapter database = new DBAdapter(GameActivity.this);
-					database.open();
-					database.insertGameResult(mWhiteName, mBlackName, mChessboard.mPositionHashFactory.getMoves(),
-							DBAdapter.DRAW_CLAIMED, new Date());
+					insertGameResult(mChessboard.getState().getMoves(), DBAdapter.DRAW_CLAIMED);
 				}
 			});
 		}
@@ -320,9 +336,10 @@ public class GameActivity extends Activity {
 
 	@Override
 	protected void onStop() {
-		DBAdapter database = new DBAdapter(this);
-		database.open();
-		database.updateTimes("" + mChessboard.getTime(Chesspiece.WHITE), "" + mChessboard.getTime(Chesspiece.BLACK));
+		mWriter.updateTimes("" + mChessboard.getTime(Chesspiece.WHITE), "" + mChessboard.getTime(Chesspiece.BLACK));
+		// The process may be killed at any time after this, so the queued
+		// writes can't be left waiting
+		mWriter.flush();
 		super.onStop();
 	}
 
@@ -363,7 +380,7 @@ public class GameActivity extends Activity {
 			getWindow().clearFlags(WindowManager.LayoutParams.FLAG_KEEP_SCREEN_ON);
 		}
 
-		mChessboard.mView.setMute(mPreferences.getBoolean("mute", false));
+		mView.setMute(mPreferences.getBoolean("mute", false));
 
 		mRotate = mPreferences.getBoolean("rotate", false);
 		if (!mRotate && mCurrentRotation != 0) {
@@ -371,7 +388,7 @@ public class GameActivity extends Activity {
 			rotate();
 			mRotate = false;
 		} else if (mRotate) {
-			if (mChessboard.mView.getCurrentPlayer() == Chesspiece.WHITE) {
+			if (mView.getCurrentPlayer() == Chesspiece.WHITE) {
 				if (mCurrentRotation != 0) {
 					rotate();
 				}
@@ -452,13 +469,25 @@ public class GameActivity extends Activity {
 			long whiteTime = Long.parseLong(bundle.getString(DBAdapter.WHITETIME, "0"));
 			long blackTime = Long.parseLong(bundle.getString(DBAdapter.BLACKTIME, "0"));
 			mChessboard.pauseClock(true);
-			int toMove = mChessboard.mPositionHashFactory.rebuildPosition(moves);
-			mChessboard.mView.setCurrentPlayer(toMove);
+			// Replaying the moves is only needed if the snapshot is missing or
+			// doesn't match them
+			byte[] snapshot = bundle.getByteArray(DBAdapter.SNAPSHOT);
+			int toMove;
+			if (snapshot != null && mChessboard.restoreSnapshot(snapshot, moves)) {
+				toMove = mChessboard.getSideToMove();
+			} else {
+				toMove = mChessboard.mPositionHashFactory.rebuildPosition(moves);
+			}
+			mView.setCurrentPlayer(toMove);
+			// The restored moves don't switch the player one by one
+			if (toMove == Chesspiece.BLACK) {
+				switchPlayer();
+			}
 			mChessboard.setTime(Chesspiece.WHITE, whiteTime);
 			mChessboard.setTime(Chesspiece.BLACK, blackTime);
 			mChessboard.revalidateClock();
 			mChessboard.pauseClock(false);
-			mChessboard.mView.reDraw();
+			mView.reDraw();
 		}
 		// Initialized from GameSettingsActivity
 		else {
@@ -472,14 +501,28 @@ public class GameActivity extends Activity {
 
 	@Override
 	protected void onDestroy() {
-		// Kill the clock thread
-		mChessboard.stopClock();
-		// Wait for the clock thread to exit(up to 50 millis delay)
-		while (mChessboard.clockRunning()) {
+		// The clock must be done calling this activity before it goes away
+		try {
+			if (!mChessboard.shutdownClock(CLOCK_SHUTDOWN_TIMEOUT)) {
+				Log.w(TAG, "The clock did not stop in time");
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
 		}
+		// Drops the commands still waiting, like a timeout sent before the stop
+		mHandler.removeCallbacksAndMessages(null);
+		mClockRenderer.stop();
 		super.onDestroy();
 	}
 
+	/**
+	 * @return The executor the game is changed on, see
+	 *         {@link Chessboard#setExecutor}
+	 */
+	public Executor getGameExecutor() {
+		return mGameExecutor;
+	}
+
 	public long getBonusTime() {
 		return mBonusTime;
 	}
@@ -512,36 +555,16 @@ public class GameActivity extends Activity {
 
 	/**
 	 * Sets the clock for the provided color to a time-formatted string taken
-	 * from the time parameter
+	 * from the time parameter. May be called from any thread; the clock is
+	 * redrawn at the next frame, and only if the displayed second changed.
 	 * 
 	 * @param color
 	 *            The color who's clock should be updated
 	 * @param time
 	 *            The new time in millis
 	 */
-	public void updateClock(final int color, long time) {
-		final StringBuilder clockBuilder = new StringBuilder();
-
-		int seconds = (int) time / 1000 % 60;
-		int minutes = (int) time / 1000 / 60 % 60;
-		int hours = (int) time / 1000 / 60 / 60;
-
-		addTimeString(clockBuilder, hours);
-		addTimeString(clockBuilder, minutes);
-		addTimeString(clockBuilder, seconds);
-
-		// Delete last instance of :
-		clockBuilder.deleteCharAt(clockBuilder.length() - 1);
-
-		runOnUiThread(new Runnable() {
-			public void run() {
-				if (color == Chesspiece.WHITE) {
-					mWhiteFrame.setTime(clockBuilder.toString());
-				} else {
-					mBlackFrame.setTime(clockBuilder.toString());
-				}
-			}
-		});
+	public void updateClock(int color, long time) {
+		mClockRenderer.setTime(color, time);
 	}
 
 	/**
@@ -562,7 +585,7 @@ public class GameActivity extends Activity {
 	public void newGame(Chessboard board) {
 		updateClock(Chesspiece.WHITE, mStartTime);
 		updateClock(Chesspiece.BLACK, mStartTime);
-		setChessboard(mChessboard);
+		setChessboard(board);
 		setCheckText(Chesspiece.WHITE, PlayerFrame.NO_CHECK);
 		setCheckText(Chesspiece.BLACK, PlayerFrame.NO_CHECK);
 		resetPlayerFrames();
@@ -596,34 +619,116 @@ public class GameActivity extends Activity {
 		}
 	}
 
+	@Override
+	public void onMoveStarted() {
+		rotate();
+	}
+
+	@Override
+	public void onMoveMade(int oldRow, int oldColumn, int row, int column) {
+		mView.setLastMoveHint(oldRow, oldColumn, row, column);
+	}
+
+	@Override
+	public void onPieceCaptured(Chesspiece piece) {
+		capturePiece(piece);
+	}
+
+	@Override
+	public void onCheckChanged(int color, boolean inCheck) {
+		if (inCheck) {
+			setCheckText(color, PlayerFrame.CHECK);
+		} else {
+			setCheckText(color, PlayerFrame.NO_CHECK);
+		}
+	}
+
+	@Override
+	public void onPlayerSwitched() {
+		switchPlayer();
+		setDrawButtonEnabled(true);
+	}
+
+	@Override
+	public void onDrawClaimableChanged(boolean claimable) {
+		if (claimable) {
+			setDrawButtonMode(CLAIMDRAW);
+		} else {
+			setDrawButtonMode(OFFERDRAW);
+		}
+	}
+
+	@Override
+	public void onGameStateChanged(int ply, String move, long whiteTime, long blackTime) {
+		// The whole state is only stored now and then, which also compacts the
+		// journal. Every other move is just appended to it
+		if (ply == 1 || ply % DBAdapter.JOURNAL_COMPACTION == 0) {
+			mWriter.insertGameState(mChessboard.mPositionHashFactory.getIntMoves(), mWhiteName, mBlackName, ""
+					+ whiteTime, "" + blackTime, "" + mBonusTime, "" + mStartTime, mChessboard.getSnapshot());
+		} else {
+			mWriter.appendMove(ply, move, whiteTime, blackTime);
+		}
+	}
+
+	@Override
+	public void onClockUpdated(int color, long time) {
+		updateClock(color, time);
+	}
+
+	@Override
+	public void onCheckmate(int winner, String moves) {
+		int loser;
+		int won;
+		if (winner == Chesspiece.WHITE) {
+			loser = Chesspiece.BLACK;
+			won = DBAdapter.WHITE_WON;
+		} else {
+			loser = Chesspiece.WHITE;
+			won = DBAdapter.BLACK_WON;
+		}
+		setCheckText(loser, PlayerFrame.CHECKMATE);
+		setCheckText(winner, PlayerFrame.WINNER);
+		insertGameResult(moves, won);
+		mView.endTheGame(ChessboardView.WINCHECKMATE, winner);
+	}
+
+	@Override
+	public void onStalemate(int color, String moves) {
+		insertGameResult(moves, DBAdapter.DRAW_STALEMATE);
+		mView.endTheGame(ChessboardView.DRAWSTALEMATE, color);
+		setCheckText(Chesspiece.WHITE, PlayerFrame.DRAW);
+		setCheckText(Chesspiece.BLACK, PlayerFrame.DRAW);
+	}
+
+	@Override
+	public void onDrawByRepetition(int color, String moves) {
+		insertGameResult(moves, DBAdapter.DRAW_REPETITION);
+		mView.endTheGame(ChessboardView.DRAWREPETITION, color);
+		setCheckText(Chesspiece.WHITE, PlayerFrame.DRAW);
+		setCheckText(Chesspiece.BLACK, PlayerFrame.DRAW);
+	}
+
+	@Override
+	public void onTimeOut(int winner, String moves) {
+		mView.timeOut(winner);
+		int won = DBAdapter.WHITE_WON;
+		if (winner == Chesspiece.BLACK) {
+			won = DBAdapter.BLACK_WON;
+		}
+		insertGameResult(moves, won);
+	}
+
 	/**
-	 * Help method for the updateClock() method
-	 * <p>
-	 * Call this method in most significant to least significant order to get a
-	 * properly formatted string.
-	 * <p>
-	 * For example:</br> addTimeString(builder, hours);</br>
-	 * addTimeString(builder, minutes);</br> addTimeString(builder,
-	 * seconds);</br>
-	 * <p>
-	 * Where time is the number you want to display.</br> (If you want to
-	 * display 123 minutes as 2:03:00 you would need:</br>
-	 * addTimeString(builder, 2);</br> addTimeString(builder, 3);</br>
-	 * addTimeString(builder, 0);</br>
+	 * Stores the result of the game in the database
 	 * 
-	 * @param clockBuilder
-	 *            The stringbuilder to write to
-	 * @param time
-	 *            The time to add
+	 * @param moves
+	 *            The chess annotations of the game
+	 * @param result
+	 *            One of the result constants in {@link DBAdapter}
 	 */
-	private void addTimeString(StringBuilder clockBuilder, int time) {
-		if (time == 0) {
-			clockBuilder.append("00:");
-		} else if (time > 0 && time < 10) {
-			clockBuilder.append("0" + time + ":");
-		} else {
-			clockBuilder.append(time + ":");
-		}
+	private void insertGameResult(String moves, int result) {
+		mWriter.insertGameResult(mWhiteName, mBlackName, moves, mChessboard.getState().getPlies(),
+				result, new Date());
 	}
 
 }
@@ -8,7 +8,6 @@ import android.graphics.drawable.BitmapDrawable;
 import android.graphics.drawable.Drawable;
 import android.media.AudioManager;
 import android.os.Bundle;
-import android.os.Looper;
 import android.view.Menu;
 import android.view.MenuItem;
 import android.view.View;
@@ -28,6 +27,9 @@ public class MainMenuActivity extends Activity {
 		setContentView(R.layout.activity_main_menu);
 
 		setVolumeControlStream(AudioManager.STREAM_MUSIC);
+		// Starts the writer thread, which converts old games in the background
+		// if the database was just upgraded
+		DBWriter.getInstance(this);
 
 		((ImageView) findViewById(R.id.img_menu_king_white)).setImageDrawable(getKingIcon(Chesspiece.WHITE));
 		((ImageView) findViewById(R.id.img_menu_king_black)).setImageDrawable(getKingIcon(Chesspiece.BLACK));
@@ -36,34 +38,64 @@ public class MainMenuActivity extends Activity {
 		final Intent gameSettingsIntent = new Intent(this, GameSettingsActivity.class);
 		button.setOnClickListener(new View.OnClickListener() {
 			public void onClick(View v) {
-				DBAdapter database = new DBAdapter(getApplicationContext());
-				database.open();
-				Cursor cursor = database.getGameState();
-				if (cursor.getCount() == 0) {
-					startActivity(gameSettingsIntent);
-				} else {
+				// Read after the writes of the last game, which may still be in
+				// the queue. Gives the intent that resumes the saved game, or
+				// null if there is none.
+				DBWriter.getInstance(MainMenuActivity.this).read(new DBWriter.Read<Intent>() {
+					@Override
+					protected Intent read(DBAdapter database) {
+						Cursor cursor = database.getGameState();
+						try {
+							if (!cursor.moveToFirst()) {
+								return null;
+							}
+							Intent intent = new Intent(MainMenuActivity.this, GameActivity.class);
+							// The moves made since the state was stored are in
+							// the journal, along with the latest times
+							StringBuilder moves = new StringBuilder(cursor.getString(cursor
+									.getColumnIndex(DBAdapter.MOVES)));
+							String whiteTime = cursor.getString(cursor.getColumnIndex(DBAdapter.WHITETIME));
+							String blackTime = cursor.getString(cursor.getColumnIndex(DBAdapter.BLACKTIME));
+							Cursor journal = database.getJournal();
+							try {
+								while (journal.moveToNext()) {
+									moves.append(' ').append(journal.getString(0));
+									whiteTime = journal.getString(1);
+									blackTime = journal.getString(2);
+								}
+							} finally {
+								journal.close();
+							}
+							intent.putExtra(MOVES, moves.toString());
+							intent.putExtra(GameSettingsActivity.WHITENAME,
+									cursor.getString(cursor.getColumnIndex(DBAdapter.WHITE_PLAYER)));
+							intent.putExtra(GameSettingsActivity.BLACKNAME,
+									cursor.getString(cursor.getColumnIndex(DBAdapter.BLACK_PLAYER)));
+							intent.putExtra(DBAdapter.WHITETIME, whiteTime);
+							intent.putExtra(DBAdapter.BLACKTIME, blackTime);
+							intent.putExtra(DBAdapter.TIME, cursor.getString(cursor.getColumnIndex(DBAdapter.TIME)));
+							intent.putExtra(DBAdapter.BONUS, cursor.getString(cursor.getColumnIndex(DBAdapter.BONUS)));
+							intent.putExtra(DBAdapter.SNAPSHOT,
+									cursor.getBlob(cursor.getColumnIndex(DBAdapter.SNAPSHOT)));
+							return intent;
+						} finally {
+							cursor.close();
+						}
+					}
 
-					new Thread(new Runnable() {
-						public void run() {
-							Looper.prepare();
+					@Override
+					protected void onRead(Intent intent) {
+						if (isFinishing()) {
+							return;
+						}
+						if (intent == null) {
+							startActivity(gameSettingsIntent);
+						} else {
 							Toast.makeText(MainMenuActivity.this, R.string.toast_loading, Toast.LENGTH_LONG).show();
-							Looper.loop();
-							Looper.myLooper().quit();
+							startActivity(intent);
 						}
-					}).start();
-					Intent intent = new Intent(MainMenuActivity.this, GameActivity.class);
-					cursor.moveToFirst();
-					intent.putExtra(MOVES, cursor.getString(cursor.getColumnIndex(DBAdapter.MOVES)));
-					intent.putExtra(GameSettingsActivity.WHITENAME,
-							cursor.getString(cursor.getColumnIndex(DBAdapter.WHITE_PLAYER)));
-					intent.putExtra(GameSettingsActivity.BLACKNAME,
-							cursor.getString(cursor.getColumnIndex(DBAdapter.BLACK_PLAYER)));
-					intent.putExtra(DBAdapter.WHITETIME, cursor.getString(cursor.getColumnIndex(DBAdapter.WHITETIME)));
-					intent.putExtra(DBAdapter.BLACKTIME, cursor.getString(cursor.getColumnIndex(DBAdapter.BLACKTIME)));
-					intent.putExtra(DBAdapter.TIME, cursor.getString(cursor.getColumnIndex(DBAdapter.TIME)));
-					intent.putExtra(DBAdapter.BONUS, cursor.getString(cursor.getColumnIndex(DBAdapter.BONUS)));
-					startActivity(intent);
-				}
+					}
+				});
 			}
 		});
 
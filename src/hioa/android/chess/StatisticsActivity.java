@@ -54,16 +54,20 @@ public class StatisticsActivity extends Activity {
 
 	// Update the displayed values
 	protected void onResume() {
-		DBAdapter database = new DBAdapter(this);
-		database.open();
-		mWhiteWins.setText(getString(R.string.txt_white_win_count) + " "
-				+ database.query(DBAdapter.RESULT + " = '" + DBAdapter.WHITE_WON + "'", null).getCount());
-		mBlackWins.setText(getString(R.string.txt_black_win_count) + " "
-				+ database.query(DBAdapter.RESULT + " = '" + DBAdapter.BLACK_WON + "'", null).getCount());
-		String where = DBAdapter.RESULT + " = '" + DBAdapter.DRAW_AGREED + "' OR " + DBAdapter.RESULT + " = '"
-				+ DBAdapter.DRAW_CLAIMED + "' OR " + DBAdapter.RESULT + " = '" + DBAdapter.DRAW_REPETITION + "' OR "
-				+ DBAdapter.RESULT + " = '" + DBAdapter.DRAW_STALEMATE + "'";
-		mDraws.setText(getString(R.string.txt_draw_count) + " " + database.query(where, null).getCount());
+		// Read after the result of the last game, which may still be in the queue
+		DBWriter.getInstance(this).read(new DBWriter.Read<StatisticsService.Record>() {
+			@Override
+			protected StatisticsService.Record read(DBAdapter database) {
+				return new StatisticsService(StatisticsActivity.this).getTotals();
+			}
+
+			@Override
+			protected void onRead(StatisticsService.Record totals) {
+				mWhiteWins.setText(getString(R.string.txt_white_win_count) + " " + totals.wins);
+				mBlackWins.setText(getString(R.string.txt_black_win_count) + " " + totals.losses);
+				mDraws.setText(getString(R.string.txt_draw_count) + " " + totals.draws);
+			}
+		});
 		super.onResume();
 	}
 
@@ -0,0 +1,208 @@
+package hioa.android.chess;
+
+import android.content.Context;
+import android.database.Cursor;
+
+/**
+ * Answers questions about the games that have been played
+ * <p>
+ * The answers are read from summaries that the database keeps up to date as
+ * every game is inserted, so they take the same time no matter how many games
+ * have been played.
+ * 
+ * @author Lars Staberget
+ * @version 2013-11-24
+ */
+
+public class StatisticsService {
+
+	private final DBAdapter mDatabase;
+
+	/**
+	 * @param context
+	 *            Any context of the application
+	 */
+	public StatisticsService(Context context) {
+		mDatabase = DBAdapter.getInstance(context);
+	}
+
+	/**
+	 * Gets the results of all games, seen from white's side
+	 * 
+	 * @return White's wins, black's wins and the draws
+	 */
+	public Record getTotals() {
+		int[] counts = mDatabase.getResultCounts();
+		return new Record(counts[DBAdapter.WHITE_WON], counts[DBAdapter.BLACK_WON], counts[DBAdapter.DRAW_STALEMATE]
+				+ counts[DBAdapter.DRAW_REPETITION] + counts[DBAdapter.DRAW_CLAIMED] + counts[DBAdapter.DRAW_AGREED]);
+	}
+
+	/**
+	 * Gets the results of one player, with either color
+	 * 
+	 * @param name
+	 *            The player's name
+	 * @return The player's wins, losses and draws
+	 */
+	public Record getPlayerRecord(String name) {
+		int[] record = mDatabase.getPlayerRecord(name);
+		return new Record(record[0], record[1], record[2]);
+	}
+
+	/**
+	 * Gets the results of one player against one opponent, with either color
+	 * 
+	 * @param name
+	 *            The player's name
+	 * @param opponent
+	 *            The opponent's name
+	 * @return The player's wins, losses and draws against the opponent
+	 */
+	public Record getHeadToHead(String name, String opponent) {
+		int[] record = mDatabase.getHeadToHead(name, opponent);
+		return new Record(record[0], record[1], record[2]);
+	}
+
+	/**
+	 * Gets everything that is known about one player
+	 * 
+	 * @param name
+	 *            The player's name
+	 * @return The player's statistics
+	 */
+	public PlayerStatistics getPlayerStatistics(String name) {
+		PlayerStatistics statistics = new PlayerStatistics(mDatabase.getPlayerStreaks(name));
+		Cursor cursor = mDatabase.getPlayerResults(name);
+		try {
+			while (cursor.moveToNext()) {
+				int color = cursor.getInt(0);
+				int result = cursor.getInt(1);
+				if (result >= 0 && result < statistics.mGames[color].length) {
+					statistics.mGames[color][result] = cursor.getInt(2);
+				}
+				statistics.mPlies += cursor.getLong(3);
+				statistics.mMeasuredGames += cursor.getInt(4);
+			}
+		} finally {
+			cursor.close();
+		}
+		return statistics;
+	}
+
+	/**
+	 * A number of wins, losses and draws
+	 */
+	public static class Record {
+		public final int wins, losses, draws;
+
+		Record(int wins, int losses, int draws) {
+			this.wins = wins;
+			this.losses = losses;
+			this.draws = draws;
+		}
+
+		public int getGames() {
+			return wins + losses + draws;
+		}
+	}
+
+	/**
+	 * The results of one player by color and by how the games ended, the
+	 * streaks and the length of the games
+	 */
+	public static class PlayerStatistics {
+		/**
+		 * The number of games, indexed by color and result constant
+		 */
+		final int[][] mGames = new int[2][DBAdapter.DRAW_AGREED + 1];
+		long mPlies;
+		int mMeasuredGames;
+		private final int mStreak, mBestStreak, mWorstStreak;
+
+		PlayerStatistics(int[] streaks) {
+			mStreak = streaks[0];
+			mBestStreak = streaks[1];
+			mWorstStreak = streaks[2];
+		}
+
+		/**
+		 * Gets the number of games the player played as one color that ended
+		 * with a result
+		 * 
+		 * @param color
+		 *            The color the player had
+		 * @param result
+		 *            One of the result constants in {@link DBAdapter}
+		 */
+		public int getGames(int color, int result) {
+			return mGames[color][result];
+		}
+
+		/**
+		 * Gets the wins, losses and draws of the player as one color
+		 * 
+		 * @param color
+		 *            The color the player had
+		 */
+		public Record getRecord(int color) {
+			int[] games = mGames[color];
+			int draws = games[DBAdapter.DRAW_STALEMATE] + games[DBAdapter.DRAW_REPETITION]
+					+ games[DBAdapter.DRAW_CLAIMED] + games[DBAdapter.DRAW_AGREED];
+			if (color == Chesspiece.WHITE) {
+				return new Record(games[DBAdapter.WHITE_WON], games[DBAdapter.BLACK_WON], draws);
+			}
+			return new Record(games[DBAdapter.BLACK_WON], games[DBAdapter.WHITE_WON], draws);
+		}
+
+		/**
+		 * Gets the share of the games as one color the player won
+		 * 
+		 * @param color
+		 *            The color the player had
+		 * @return A number from 0 to 1, 0 if the player has no games as the
+		 *         color
+		 */
+		public float getWinRate(int color) {
+			Record record = getRecord(color);
+			if (record.getGames() == 0) {
+				return 0;
+			}
+			return (float) record.wins / record.getGames();
+		}
+
+		/**
+		 * Gets the average number of moves, by both players, of the player's
+		 * games. Games played before the length was stored aren't included.
+		 * 
+		 * @return The average length, 0 if it isn't known for any game
+		 */
+		public float getAverageLength() {
+			if (mMeasuredGames == 0) {
+				return 0;
+			}
+			return (float) mPlies / mMeasuredGames;
+		}
+
+		/**
+		 * @return The number of wins in a row the player has now, or minus
+		 *         the number of losses in a row
+		 */
+		public int getStreak() {
+			return mStreak;
+		}
+
+		/**
+		 * @return The most wins in a row the player has had
+		 */
+		public int getBestStreak() {
+			return mBestStreak;
+		}
+
+		/**
+		 * @return Minus the most losses in a row the player has had
+		 */
+		public int getWorstStreak() {
+			return mWorstStreak;
+		}
+	}
+}
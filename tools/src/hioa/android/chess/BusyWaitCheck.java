@@ -0,0 +1,380 @@
+package hioa.android.chess;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Finds loops that wait by spinning in Java source files. Run with:
+ * <p>
+ * java -cp tools/target/classes hioa.android.chess.BusyWaitCheck src
+ * core/src
+ * <p>
+ * A loop is reported if its body is empty, or if its body never sleeps or
+ * waits and either its condition reads the time, or nothing in the body
+ * changes a variable its condition reads. The last kind spins until another
+ * thread changes a flag. Conditions that call methods are left out of that
+ * rule, since the call may be what ends the loop. Every loop reported is
+ * printed with its file and line, and the exit status is 1 if there was any.
+ * Waiting is done with the clock, a timer or Handler.postDelayed() instead.
+ * 
+ * @author Lars Staberget
+ * @version 2013-11-24
+ */
+
+public class BusyWaitCheck {
+
+	private static final Charset ENCODING = Charset.forName("windows-1252");
+	private static final String[] TIME_READS = { "new Date()",
+			"currentTimeMillis()", "nanoTime()", "uptimeMillis()" };
+	private static final String[] WAITS = { "sleep(", "wait(", "Wait(",
+			"await(", "join(", "park", "take(", "poll(" };
+	private static final String[] ASSIGNMENTS = { "=", "+=", "-=", "*=", "/=",
+			"%=", "&=", "|=", "^=", "<<=", ">>=", ">>>=", "++", "--" };
+	private static final String[] KEYWORDS = { "true", "false", "null",
+			"this", "super", "instanceof" };
+
+	private final List<String> mProblems = new ArrayList<String>();
+
+	/**
+	 * Checks a file, or every Java file below a directory
+	 * 
+	 * @param file
+	 *            The file or directory
+	 * @throws IOException
+	 *             If a file can't be read
+	 */
+	public void check(File file) throws IOException {
+		if (file.isDirectory()) {
+			File[] children = file.listFiles();
+			if (children != null) {
+				for (int i = 0; i < children.length; i++) {
+					check(children[i]);
+				}
+			}
+		} else if (file.getName().endsWith(".java")) {
+			String source = new String(Files.readAllBytes(file.toPath()),
+					ENCODING);
+			check(file.getPath(), source);
+		}
+	}
+
+	/**
+	 * Checks the source of one file
+	 * 
+	 * @param name
+	 *            The name the loops are reported with
+	 * @param source
+	 *            The source
+	 */
+	void check(String name, String source) {
+		checkSource(name, stripCommentsAndStrings(source));
+	}
+
+	/**
+	 * @return Every loop that has been reported, as file:line: reason
+	 */
+	public List<String> getProblems() {
+		return mProblems;
+	}
+
+	private void checkSource(String name, String code) {
+		int index = 0;
+		while ((index = nextWhile(code, index)) >= 0) {
+			int open = code.indexOf('(', index);
+			int close = matching(code, open, '(', ')');
+			if (close < 0) {
+				return;
+			}
+			String condition = code.substring(open + 1, close);
+			int bodyStart = skipWhitespace(code, close + 1);
+			String body;
+			if (bodyStart >= code.length()) {
+				return;
+			} else if (code.charAt(bodyStart) == ';') {
+				// The end of a do-while loop, or a loop without a body
+				body = isDoWhileEnd(code, index) ? null : "";
+			} else if (code.charAt(bodyStart) == '{') {
+				int bodyEnd = matching(code, bodyStart, '{', '}');
+				if (bodyEnd < 0) {
+					return;
+				}
+				body = code.substring(bodyStart + 1, bodyEnd);
+			} else {
+				int end = code.indexOf(';', bodyStart);
+				body = code.substring(bodyStart, end < 0 ? code.length()
+						: end + 1);
+			}
+			if (body != null) {
+				String reason = null;
+				if (body.trim().length() == 0) {
+					reason = "empty loop body";
+				} else if (containsAny(body, WAITS)) {
+					reason = null;
+				} else if (containsAny(condition, TIME_READS)) {
+					reason = "polls the time without waiting";
+				} else if (spins(condition, body)) {
+					reason = "spins on a condition its body never changes";
+				}
+				if (reason != null) {
+					mProblems.add(name + ":" + lineOf(code, index) + ": "
+							+ reason);
+				}
+			}
+			index = close;
+		}
+	}
+
+	/**
+	 * Tells if nothing in the body of a loop changes a variable its condition
+	 * reads. Conditions that call a method or change a variable themselves,
+	 * or that read no variable at all like while (true), are left to the
+	 * other rules.
+	 */
+	private static boolean spins(String condition, String body) {
+		List<String> names = new ArrayList<String>();
+		int i = 0;
+		while (i < condition.length()) {
+			int end = i;
+			while (end < condition.length()
+					&& Character.isJavaIdentifierPart(condition.charAt(end))) {
+				end++;
+			}
+			// Literals such as 0x10 and 1L start with a digit
+			if (end == i || Character.isDigit(condition.charAt(i))) {
+				i = Math.max(end, i + 1);
+				continue;
+			}
+			String name = condition.substring(i, end);
+			int after = skipWhitespace(condition, end);
+			if (after < condition.length() && condition.charAt(after) == '(') {
+				return false;
+			}
+			if (!isKeyword(name)) {
+				if (isAssigned(condition, name)) {
+					return false;
+				}
+				names.add(name);
+			}
+			i = end;
+		}
+		if (names.isEmpty()) {
+			return false;
+		}
+		for (String name : names) {
+			if (isAssigned(body, name)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static boolean isKeyword(String name) {
+		for (int i = 0; i < KEYWORDS.length; i++) {
+			if (KEYWORDS[i].equals(name)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Tells if the code assigns, increments or decrements a variable or field
+	 * with the name, or an element of it
+	 */
+	private static boolean isAssigned(String code, String name) {
+		int index = 0;
+		while ((index = code.indexOf(name, index)) >= 0) {
+			int end = index + name.length();
+			boolean isWord = (index == 0 || !Character
+					.isJavaIdentifierPart(code.charAt(index - 1)))
+					&& (end == code.length() || !Character
+							.isJavaIdentifierPart(code.charAt(end)));
+			if (isWord) {
+				int after = skipWhitespace(code, end);
+				while (after < code.length() && code.charAt(after) == '[') {
+					int close = matching(code, after, '[', ']');
+					if (close < 0) {
+						return false;
+					}
+					after = skipWhitespace(code, close + 1);
+				}
+				if (startsWithAssignment(code, after)) {
+					return true;
+				}
+				int before = index - 1;
+				while (before >= 0
+						&& Character.isWhitespace(code.charAt(before))) {
+					before--;
+				}
+				if (before >= 1
+						&& (code.startsWith("++", before - 1) || code
+								.startsWith("--", before - 1))) {
+					return true;
+				}
+			}
+			index = end;
+		}
+		return false;
+	}
+
+	private static boolean startsWithAssignment(String code, int index) {
+		for (int i = 0; i < ASSIGNMENTS.length; i++) {
+			String operator = ASSIGNMENTS[i];
+			if (code.startsWith(operator, index)) {
+				// = must not be the start of ==
+				int after = index + operator.length();
+				return !operator.equals("=") || after >= code.length()
+						|| code.charAt(after) != '=';
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Finds the next while keyword at or after index
+	 */
+	private static int nextWhile(String code, int index) {
+		while ((index = code.indexOf("while", index)) >= 0) {
+			boolean startsWord = index == 0
+					|| !Character.isJavaIdentifierPart(code.charAt(index - 1));
+			int after = skipWhitespace(code, index + 5);
+			if (startsWord && after < code.length()
+					&& code.charAt(after) == '(') {
+				return index;
+			}
+			index += 5;
+		}
+		return -1;
+	}
+
+	/**
+	 * Tells if the while at index closes a do-while loop, that is if it
+	 * follows a closing brace whose block is preceded by do
+	 */
+	private static boolean isDoWhileEnd(String code, int index) {
+		int before = index - 1;
+		while (before >= 0 && Character.isWhitespace(code.charAt(before))) {
+			before--;
+		}
+		if (before < 0 || code.charAt(before) != '}') {
+			return false;
+		}
+		int depth = 0;
+		for (int i = before; i >= 0; i--) {
+			char c = code.charAt(i);
+			if (c == '}') {
+				depth++;
+			} else if (c == '{' && --depth == 0) {
+				return code.substring(0, i).trim().endsWith("do");
+			}
+		}
+		return false;
+	}
+
+	private static int matching(String code, int open, char opening,
+			char closing) {
+		int depth = 0;
+		for (int i = open; i < code.length(); i++) {
+			char c = code.charAt(i);
+			if (c == opening) {
+				depth++;
+			} else if (c == closing && --depth == 0) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static int skipWhitespace(String code, int index) {
+		while (index < code.length()
+				&& Character.isWhitespace(code.charAt(index))) {
+			index++;
+		}
+		return index;
+	}
+
+	private static boolean containsAny(String code, String[] parts) {
+		for (int i = 0; i < parts.length; i++) {
+			if (code.contains(parts[i])) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static int lineOf(String code, int index) {
+		int line = 1;
+		for (int i = 0; i < index; i++) {
+			if (code.charAt(i) == '\n') {
+				line++;
+			}
+		}
+		return line;
+	}
+
+	/**
+	 * Replaces comments and the contents of string and character literals
+	 * with spaces, keeping the line breaks so the line numbers still match
+	 */
+	static String stripCommentsAndStrings(String source) {
+		StringBuilder code = new StringBuilder(source.length());
+		int i = 0;
+		while (i < source.length()) {
+			char c = source.charAt(i);
+			if (source.startsWith("//", i)) {
+				while (i < source.length() && source.charAt(i) != '\n') {
+					code.append(' ');
+					i++;
+				}
+			} else if (source.startsWith("/*", i)) {
+				int end = source.indexOf("*/", i + 2);
+				end = end < 0 ? source.length() : end + 2;
+				for (; i < end; i++) {
+					code.append(source.charAt(i) == '\n' ? '\n' : ' ');
+				}
+			} else if (c == '"' || c == '\'') {
+				code.append(c);
+				i++;
+				while (i < source.length() && source.charAt(i) != c
+						&& source.charAt(i) != '\n') {
+					if (source.charAt(i) == '\\') {
+						code.append(' ');
+						i++;
+					}
+					code.append(' ');
+					i++;
+				}
+				if (i < source.length()) {
+					code.append(source.charAt(i));
+					i++;
+				}
+			} else {
+				code.append(c);
+				i++;
+			}
+		}
+		return code.toString();
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length == 0) {
+			System.err.println("Usage: BusyWaitCheck <file or directory>...");
+			System.exit(2);
+		}
+		BusyWaitCheck check = new BusyWaitCheck();
+		for (int i = 0; i < args.length; i++) {
+			check.check(new File(args[i]));
+		}
+		for (String problem : check.getProblems()) {
+			System.out.println(problem);
+		}
+		if (!check.getProblems().isEmpty()) {
+			System.exit(1);
+		}
+		System.out.println("No busy waits found");
+	}
+}
@@ -0,0 +1,284 @@
+package hioa.android.chess;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Counts the leaf nodes of the legal move tree to verify and time the move
+ * generation in {@link Chessboard}
+ * <p>
+ * Usage: Perft [-fen FEN] [-depth N] [-divide] [-hash MB] [-threads N] [-suite]
+ * <ul>
+ * <li>-fen: The position to count from. Defaults to the starting position</li>
+ * <li>-depth: The depth to count to. Defaults to 5</li>
+ * <li>-divide: Prints the node count below every root move</li>
+ * <li>-hash: Caches node counts of transpositions in a table of this size</li>
+ * <li>-threads: Splits the root moves across this many threads</li>
+ * <li>-suite: Runs the reference positions up to -depth and compares the
+ * counts to the published ones</li>
+ * </ul>
+ * 
+ * @author Lars Staberget
+ * @version 2013-11-24
+ */
+
+public class Perft {
+
+	private static final String START_POSITION = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+	/**
+	 * The reference positions from the chess programming community and their
+	 * node counts from depth 1 and up
+	 */
+	private static final Object[][] SUITE = {
+			{ "Start position", START_POSITION,
+					new long[] { 20, 400, 8902, 197281, 4865609, 119060324 } },
+			{ "Kiwipete", "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1",
+					new long[] { 48, 2039, 97862, 4085603, 193690690 } },
+			{ "Position 3", "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1",
+					new long[] { 14, 191, 2812, 43238, 674624, 11030083 } },
+			{ "Position 4", "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1",
+					new long[] { 6, 264, 9467, 422333, 15833292 } },
+			{ "Position 5", "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8",
+					new long[] { 44, 1486, 62379, 2103487, 89941194 } },
+			{ "Position 6", "r4rk1/1pp1qppp/p1np1n2/2b1p1B1/2B1P1b1/P1NP1N2/1PP1QPPP/R4RK1 w - - 0 10",
+					new long[] { 46, 2079, 89890, 3894594, 164075551 } } };
+
+	private final String mFen;
+	private final PerftTable mTable;
+	private final int mThreads;
+
+	/**
+	 * @param fen
+	 *            The position to count from
+	 * @param table
+	 *            The transposition table to use, or null to count every node
+	 * @param threads
+	 *            The number of threads to split the root moves across
+	 */
+	public Perft(String fen, PerftTable table, int threads) {
+		mFen = fen;
+		mTable = table;
+		mThreads = threads;
+	}
+
+	/**
+	 * Counts the leaf nodes at the provided depth
+	 * 
+	 * @param depth
+	 *            The depth to count to, at least 1
+	 * @return The number of leaf nodes
+	 */
+	public long count(int depth) {
+		long[] nodes = divide(depth, getRootMoves());
+		long total = 0;
+		for (int i = 0; i < nodes.length; i++) {
+			total += nodes[i];
+		}
+		return total;
+	}
+
+	/**
+	 * Gets the legal moves of the position counted from
+	 * 
+	 * @return The moves encoded by {@link Move}
+	 */
+	public int[] getRootMoves() {
+		MoveList moves = new MoveList();
+		int count = new Chessboard(mFen).getLegalMoves(moves);
+		int[] rootMoves = new int[count];
+		for (int i = 0; i < count; i++) {
+			rootMoves[i] = moves.get(i);
+		}
+		return rootMoves;
+	}
+
+	/**
+	 * Counts the leaf nodes below each of the provided root moves
+	 * 
+	 * @param depth
+	 *            The depth to count to, counting the root moves
+	 * @param rootMoves
+	 *            The moves to count below
+	 * @return The node count of each root move
+	 */
+	public long[] divide(int depth, int[] rootMoves) {
+		List<RootMoveTask> tasks = new ArrayList<RootMoveTask>();
+		for (int i = 0; i < rootMoves.length; i++) {
+			tasks.add(new RootMoveTask(rootMoves[i], depth - 1));
+		}
+		if (mThreads > 1) {
+			ForkJoinPool pool = new ForkJoinPool(mThreads);
+			try {
+				for (RootMoveTask task : tasks) {
+					pool.execute(task);
+				}
+				long[] nodes = new long[tasks.size()];
+				for (int i = 0; i < nodes.length; i++) {
+					nodes[i] = tasks.get(i).join();
+				}
+				return nodes;
+			} finally {
+				pool.shutdown();
+			}
+		}
+		long[] nodes = new long[tasks.size()];
+		for (int i = 0; i < nodes.length; i++) {
+			nodes[i] = tasks.get(i).invoke();
+		}
+		return nodes;
+	}
+
+	/**
+	 * Counts the nodes below one root move on a board of its own, since a
+	 * {@link Chessboard} can't be shared between threads
+	 */
+	private class RootMoveTask extends RecursiveTask<Long> {
+
+		private static final long serialVersionUID = 1L;
+		private final int mMove;
+		private final int mDepth;
+
+		RootMoveTask(int move, int depth) {
+			mMove = move;
+			mDepth = depth;
+		}
+
+		@Override
+		protected Long compute() {
+			if (mDepth == 0) {
+				return 1L;
+			}
+			Chessboard board = new Chessboard(mFen);
+			board.makeMove(mMove);
+			MoveList[] lists = new MoveList[mDepth + 1];
+			for (int i = 0; i < lists.length; i++) {
+				lists[i] = new MoveList();
+			}
+			return perft(board, lists, mDepth, mTable);
+		}
+	}
+
+	/**
+	 * Counts the leaf nodes below the current position of the board
+	 * 
+	 * @param board
+	 *            The board to count on. It is left as it was found
+	 * @param lists
+	 *            One move list per remaining depth
+	 * @param depth
+	 *            The remaining depth, at least 1
+	 * @param table
+	 *            The transposition table, or null
+	 * @return The number of leaf nodes
+	 */
+	public static long perft(Chessboard board, MoveList[] lists, int depth,
+			PerftTable table) {
+		MoveList moves = lists[depth];
+		int count = board.getLegalMoves(moves);
+		// Bulk counting, the leaves don't need to be made
+		if (depth == 1) {
+			return count;
+		}
+		long key = board.getHashKey();
+		if (table != null) {
+			long nodes = table.get(key, depth);
+			if (nodes != PerftTable.MISS) {
+				return nodes;
+			}
+		}
+		long nodes = 0;
+		for (int i = 0; i < count; i++) {
+			board.makeMove(moves.get(i));
+			nodes += perft(board, lists, depth - 1, table);
+			board.unmakeMove();
+		}
+		if (table != null) {
+			table.put(key, depth, nodes);
+		}
+		return nodes;
+	}
+
+	public static void main(String[] args) {
+		String fen = START_POSITION;
+		int depth = 5, hash = 0, threads = 1;
+		boolean divide = false, suite = false;
+		for (int i = 0; i < args.length; i++) {
+			if (args[i].equals("-fen")) {
+				fen = args[++i];
+			} else if (args[i].equals("-depth")) {
+				depth = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("-hash")) {
+				hash = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("-threads")) {
+				threads = Integer.parseInt(args[++i]);
+			} else if (args[i].equals("-divide")) {
+				divide = true;
+			} else if (args[i].equals("-suite")) {
+				suite = true;
+			} else {
+				System.err.println("Unknown option: " + args[i]);
+				System.exit(2);
+			}
+		}
+		PerftTable table = hash > 0 ? new PerftTable(hash) : null;
+		if (suite) {
+			System.exit(runSuite(depth, table, threads) ? 0 : 1);
+		}
+
+		Perft perft = new Perft(fen, table, threads);
+		long start = System.nanoTime();
+		long nodes;
+		if (divide) {
+			int[] rootMoves = perft.getRootMoves();
+			long[] counts = perft.divide(depth, rootMoves);
+			nodes = 0;
+			for (int i = 0; i < rootMoves.length; i++) {
+				System.out.println(Move.toString(rootMoves[i]) + ": "
+						+ counts[i]);
+				nodes += counts[i];
+			}
+			System.out.println("Moves: " + rootMoves.length);
+		} else {
+			nodes = perft.count(depth);
+		}
+		long elapsed = System.nanoTime() - start;
+		System.out.println("Depth " + depth + ": " + nodes + " nodes in "
+				+ elapsed / 1000000 + " ms (" + nodesPerSecond(nodes, elapsed)
+				+ " nps)");
+	}
+
+	/**
+	 * Counts every reference position up to the provided depth
+	 * 
+	 * @return True if every count matched
+	 */
+	private static boolean runSuite(int maxDepth, PerftTable table,
+			int threads) {
+		boolean passed = true;
+		for (int i = 0; i < SUITE.length; i++) {
+			String name = (String) SUITE[i][0];
+			String fen = (String) SUITE[i][1];
+			long[] expected = (long[]) SUITE[i][2];
+			Perft perft = new Perft(fen, table, threads);
+			for (int depth = 1; depth <= Math.min(maxDepth, expected.length); depth++) {
+				long start = System.nanoTime();
+				long nodes = perft.count(depth);
+				long elapsed = System.nanoTime() - start;
+				boolean ok = nodes == expected[depth - 1];
+				passed &= ok;
+				System.out.println((ok ? "OK   " : "FAIL ") + name + " depth "
+						+ depth + ": " + nodes + " (expected "
+						+ expected[depth - 1] + ", "
+						+ nodesPerSecond(nodes, elapsed) + " nps)");
+			}
+		}
+		return passed;
+	}
+
+	private static long nodesPerSecond(long nodes, long nanos) {
+		return nanos == 0 ? 0 : nodes * 1000000000L / nanos;
+	}
+}
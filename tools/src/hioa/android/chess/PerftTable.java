@@ -0,0 +1,81 @@
+package hioa.android.chess;
+
+/**
+ * A transposition table for perft, mapping a position and a depth to the
+ * number of leaf nodes below it
+ * <p>
+ * The table can be shared by several threads without locking. Every entry is
+ * stored as two longs, the data and the hash key XOR'ed with the data. An entry
+ * torn by two threads writing at the same time fails the key check and is
+ * simply treated as a miss.
+ * 
+ * @author Lars Staberget
+ * @version 2013-11-24
+ */
+
+public class PerftTable {
+
+	private static final int DEPTH_BITS = 8;
+	private static final long DEPTH_MASK = (1L << DEPTH_BITS) - 1;
+	public static final long MISS = -1;
+
+	private final long[] mKeys;
+	private final long[] mData;
+	private final int mMask;
+
+	/**
+	 * Creates a table using roughly the provided amount of memory
+	 * 
+	 * @param megabytes
+	 *            The size of the table
+	 */
+	public PerftTable(int megabytes) {
+		long entries = megabytes * 1024L * 1024L / 16;
+		// Round down to a power of two so the index is a simple mask
+		int size = Integer.highestOneBit((int) Math.min(entries, 1 << 30));
+		mKeys = new long[size];
+		mData = new long[size];
+		mMask = size - 1;
+	}
+
+	/**
+	 * Looks up the node count of a position
+	 * 
+	 * @param key
+	 *            The Zobrist hash of the position
+	 * @param depth
+	 *            The remaining depth
+	 * @return The node count, or MISS if the position is not in the table
+	 */
+	public long get(long key, int depth) {
+		int index = index(key, depth);
+		long data = mData[index];
+		if ((mKeys[index] ^ data) == key && (data & DEPTH_MASK) == depth) {
+			return data >>> DEPTH_BITS;
+		}
+		return MISS;
+	}
+
+	/**
+	 * Stores the node count of a position, replacing whatever was stored in
+	 * the same slot
+	 * 
+	 * @param key
+	 *            The Zobrist hash of the position
+	 * @param depth
+	 *            The remaining depth
+	 * @param nodes
+	 *            The number of leaf nodes
+	 */
+	public void put(long key, int depth, long nodes) {
+		int index = index(key, depth);
+		long data = (nodes << DEPTH_BITS) | depth;
+		mData[index] = data;
+		mKeys[index] = key ^ data;
+	}
+
+	private int index(long key, int depth) {
+		// Spread the depths so one position doesn't use a single slot
+		return (int) (key ^ (depth * 0x9E3779B97F4A7C15L)) & mMask;
+	}
+}
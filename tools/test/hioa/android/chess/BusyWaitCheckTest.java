@@ -0,0 +1,150 @@
+package hioa.android.chess;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Runs {@link BusyWaitCheck} on the loops that waited by spinning in the first
+ * version of the game, and on loops that wait or make progress
+ * 
+ * @author Lars Staberget
+ * @version 2013-11-24
+ */
+
+public class BusyWaitCheckTest {
+
+	/**
+	 * Checks a method body, put in a class and a method so that its first line
+	 * is line 3
+	 */
+	private static List<String> check(String... lines) {
+		StringBuilder source = new StringBuilder(
+				"class Test {\n\tvoid run() {\n");
+		for (int i = 0; i < lines.length; i++) {
+			source.append(lines[i]).append('\n');
+		}
+		source.append("\t}\n}\n");
+		BusyWaitCheck check = new BusyWaitCheck();
+		check.check("Test.java", source.toString());
+		return check.getProblems();
+	}
+
+	private static void assertReported(int line, String reason,
+			List<String> problems) {
+		assertEquals(1, problems.size());
+		assertEquals("Test.java:" + line + ": " + reason, problems.get(0));
+	}
+
+	@Test
+	public void testClockWaitingForMove() {
+		// The clock thread of Chessboard while a move was being made
+		assertReported(3, "spins on a condition its body never changes",
+				check("while (mMoving || mPause) {",
+						"	if (mStopClock) {",
+						"		mStopClock = false;",
+						"		mClockRunning = false;",
+						"		return;",
+						"	}",
+						"	if (mPause) {",
+						"		diff2 = diff1 = new Date().getTime();",
+						"	}",
+						"}"));
+	}
+
+	@Test
+	public void testClockWaitingForLastMove() {
+		// The clock thread of Chessboard after the time had run out
+		assertReported(3, "spins on a condition its body never changes",
+				check("while (mMoving) {",
+						"	if (mStopClock) {",
+						"		mStopClock = false;",
+						"		mClockRunning = false;",
+						"		return;",
+						"	}",
+						"}"));
+	}
+
+	@Test
+	public void testViewingTheBoard() {
+		// ChessboardView showing the board before the dialog came back
+		assertReported(4, "empty loop body",
+				check("Date now = new Date();",
+						"while (new Date().getTime() - now.getTime() < VIEWBOARDTIME) {",
+						"}"));
+	}
+
+	@Test
+	public void testWaitingForClockThread() {
+		// GameActivity.onDestroy() waiting for the clock thread to exit
+		assertReported(3, "empty loop body",
+				check("while (mChessboard.clockRunning()) {", "}"));
+	}
+
+	@Test
+	public void testPollingTheTime() {
+		assertReported(3, "polls the time without waiting",
+				check("while (System.currentTimeMillis() < end) {",
+						"	count++;", "}"));
+	}
+
+	@Test
+	public void testSpinningWithoutBraces() {
+		assertReported(3, "spins on a condition its body never changes",
+				check("while (!mDone)", "	mSpins[0]++;"));
+	}
+
+	@Test
+	public void testDoWhile() {
+		assertTrue(check("do {", "	i++;", "} while (i < 10);").isEmpty());
+		assertTrue(check("do {", "	node = node.mNext;",
+				"} while (node != null);").isEmpty());
+	}
+
+	@Test
+	public void testSleeping() {
+		assertTrue(check("while (mMoving) {", "	try {",
+				"		Thread.sleep(50);",
+				"	} catch (InterruptedException e) {", "	}", "}").isEmpty());
+		assertTrue(check("while (mCallbacks > 0) {",
+				"	long left = end - System.nanoTime();",
+				"	TimeUnit.NANOSECONDS.timedWait(this, left);", "}")
+				.isEmpty());
+	}
+
+	@Test
+	public void testWaitingOnMonitor() {
+		assertTrue(check("synchronized (this) {", "	while (!mDone) {",
+				"		wait();", "	}", "}").isEmpty());
+	}
+
+	@Test
+	public void testProgress() {
+		assertTrue(check("while (i < n) {", "	sum += values[i];", "	i++;",
+				"}").isEmpty());
+		assertTrue(check("while (node != null) {", "	count++;",
+				"	node = node.mNext;", "}").isEmpty());
+		assertTrue(check("while (bits != 0) {",
+				"	int square = Long.numberOfTrailingZeros(bits);",
+				"	bits &= bits - 1;", "}").isEmpty());
+		assertTrue(check("while (--left >= 0) {", "	count++;", "}")
+				.isEmpty());
+	}
+
+	@Test
+	public void testConditionCallingMethod() {
+		assertTrue(check("while (cursor.moveToNext()) {",
+				"	names.add(cursor.getString(0));", "}").isEmpty());
+		assertTrue(check("while (true) {", "	if (queue.isEmpty()) {",
+				"		break;", "	}", "	queue.remove();", "}").isEmpty());
+	}
+
+	@Test
+	public void testCommentsAndStrings() {
+		assertTrue(check("// while (mMoving) {}",
+				"String s = \"while (mMoving) {}\";").isEmpty());
+	}
+}